@@ -0,0 +1,13 @@
+-- Seed :rows synthetic users for the name search benchmark.
+-- Usage: psql -v rows=1000000 -f trgm-search-seed.sql
+
+TRUNCATE users RESTART IDENTITY;
+
+INSERT INTO users (first_name, last_name, email, address)
+SELECT initcap(substr(md5(i::text), 1, 8)),
+       initcap(substr(md5((i * 7)::text), 1, 10)),
+       'user' || i || '@example' || (i % 50) || '.com',
+       'Via Bench ' || i
+FROM generate_series(1, :rows) AS i;
+
+ANALYZE users;
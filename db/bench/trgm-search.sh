@@ -0,0 +1,52 @@
+#!/usr/bin/env bash
+# Benchmark of the first/last name substring search with and without the pg_trgm GIN indexes.
+#
+# For each table size it seeds the users table, runs pgbench with the search query
+# once without the trigram indexes and once with them, and prints p50/p99 latency.
+#
+# Requires psql and pgbench on the PATH and the usual PG* variables, e.g. against the compose database:
+#   PGHOST=localhost PGPORT=5433 PGUSER=postgres PGPASSWORD=admin PGDATABASE=postgres ./db/bench/trgm-search.sh
+#
+# WARNING: the users table is truncated and reseeded.
+
+set -euo pipefail
+
+DIR="$(cd "$(dirname "$0")" && pwd)"
+SIZES="${SIZES:-1000000 10000000}"
+DURATION="${DURATION:-60}"
+CLIENTS="${CLIENTS:-8}"
+WORK="$(mktemp -d)"
+trap 'rm -rf "$WORK"' EXIT
+
+# pgbench per-transaction log: client_id transaction_no latency_us script_no epoch epoch_us
+percentiles() {
+    cat "$WORK"/pgbench_log.* | awk '{ print $3 }' | sort -n | awk '
+        { v[NR] = $1 }
+        END {
+            printf "p50=%.2fms p99=%.2fms max=%.2fms n=%d\n",
+                   v[int(NR * 0.50)] / 1000, v[int(NR * 0.99)] / 1000, v[NR] / 1000, NR
+        }'
+    rm -f "$WORK"/pgbench_log.*
+}
+
+run() {
+    (cd "$WORK" && pgbench -n -M prepared -c "$CLIENTS" -j "$CLIENTS" -T "$DURATION" \
+        -f "$DIR/trgm-search.pgbench" -l >/dev/null)
+    percentiles
+}
+
+for rows in $SIZES; do
+    echo "== $rows rows"
+    psql -q -v ON_ERROR_STOP=1 -v rows="$rows" -f "$DIR/trgm-search-seed.sql"
+
+    psql -q -c "DROP INDEX IF EXISTS users_first_name_trgm_idx; DROP INDEX IF EXISTS users_last_name_trgm_idx;"
+    printf 'before (seq scan):  '
+    run
+
+    psql -q -c "CREATE EXTENSION IF NOT EXISTS pg_trgm;
+                CREATE INDEX users_first_name_trgm_idx ON users USING gin (first_name gin_trgm_ops);
+                CREATE INDEX users_last_name_trgm_idx  ON users USING gin (last_name gin_trgm_ops);
+                ANALYZE users;"
+    printf 'after (trigram GIN): '
+    run
+done
@@ -0,0 +1,3 @@
+#!/bin/bash
+# Allow streaming replication connections from the other containers (read replica, docker compose profile "replica")
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
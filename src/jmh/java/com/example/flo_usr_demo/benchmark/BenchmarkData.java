@@ -0,0 +1,120 @@
+package com.example.flo_usr_demo.benchmark;
+
+import com.example.flo_usr_demo.dto.UserCreateDto;
+import com.example.flo_usr_demo.dto.UserDto;
+import com.example.flo_usr_demo.model.User;
+import com.example.flo_usr_demo.repository.UserJdbcRepository;
+import com.example.flo_usr_demo.repository.UserRepository;
+import com.example.flo_usr_demo.service.UserRowValidator;
+import jakarta.validation.Validation;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixtures shared by the benchmarks: realistic users and in-memory stand-ins for the repositories,
+ * so that the benchmarks measure the application code and not the database.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static User user(long i) {
+        return new User(i, "Name" + i, "Surname" + i, "user" + i + "@example.com", "Via Roma " + i + ", Roma");
+    }
+
+    static List<User> users(int n) {
+        List<User> users = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            users.add(user(i));
+        }
+        return users;
+    }
+
+    static List<UserDto> userDtos(int n) {
+        List<UserDto> dtos = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            dtos.add(new UserDto((long) i, "Name" + i, "Surname" + i, "user" + i + "@example.com", "Via Roma " + i + ", Roma", 0L));
+        }
+        return dtos;
+    }
+
+    static List<UserCreateDto> createDtos(int n) {
+        List<UserCreateDto> dtos = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            dtos.add(new UserCreateDto("Name" + i, "Surname" + i, "user" + i + "@example.com", "Via Roma " + i + ", Roma"));
+        }
+        return dtos;
+    }
+
+    /** @return a CSV upload with a header line and n rows, as accepted by /api/users/upload */
+    static String csv(int n) {
+        StringBuilder sb = new StringBuilder("firstName,lastName,email,address\n");
+        for (int i = 1; i <= n; i++) {
+            sb.append("Name").append(i).append(",Surname").append(i)
+              .append(",user").append(i).append("@example.com,\"Via Roma ").append(i).append(", Roma\"\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A UserRepository answering searches with a fixed list and echoing saveAll with fresh IDs.
+     */
+    static UserRepository repository(List<User> searchResult) {
+        return (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findAll",
+                         "findByFirstNameContainingIgnoreCase",
+                         "findByLastNameContainingIgnoreCase",
+                         "findByFirstNameContainingIgnoreCaseAndLastNameContainingIgnoreCase" -> searchResult;
+                    case "saveAll" -> {
+                        List<User> saved = new ArrayList<>();
+                        long id = 1;
+                        for (Object o : (Iterable<?>) args[0]) {
+                            User u = (User) o;
+                            u.setId(id++);
+                            saved.add(u);
+                        }
+                        yield saved;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * A UserJdbcRepository that accepts every row without touching a database.
+     */
+    static UserJdbcRepository jdbcRepository() {
+        return new UserJdbcRepository() {
+            @Override
+            public int insertBatch(List<UserCreateDto> rows) {
+                return rows.size();
+            }
+        };
+    }
+
+    /**
+     * A UserRowValidator backed by a real Bean Validation validator, as in the application.
+     */
+    static UserRowValidator rowValidator() {
+        UserRowValidator rowValidator = new UserRowValidator();
+        inject(rowValidator, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        return rowValidator;
+    }
+
+    /** Set a private (normally @Autowired or @Value) field. */
+    static void inject(Object target, String field, Object value) {
+        try {
+            Field f = target.getClass().getDeclaredField(field);
+            f.setAccessible(true);
+            f.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.flo_usr_demo.benchmark;
+
+import com.example.flo_usr_demo.service.MappedCsvParser;
+import com.opencsv.CSVReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing throughput of a CSV file on disk, in MB/s (the "megabytes" secondary result):
+ * opencsv over a buffered reader, as the line-by-line import job does, against the memory-mapped parser
+ * with one and with all cores. The file stays in the page cache, so this measures parsing, not the disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CsvFileParseBenchmark {
+
+    /** Segment size of the mapped parser, the default of app.import.jobs.segment-size. */
+    private static final long SEGMENT_SIZE = 4L * 1024 * 1024;
+
+    @Param({"1000000"})
+    private int rows;
+
+    private Path file;
+    private double megabytes;
+    private ExecutorService parallel;
+    private ExecutorService single;
+    private int cores;
+
+    /**
+     * Megabytes parsed, reported by JMH as a rate next to the operations per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+        public double megabytes;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("users-bench-", ".csv");
+        Files.writeString(file, BenchmarkData.csv(rows), StandardCharsets.UTF_8);
+        megabytes = Files.size(file) / 1_000_000.0;
+        cores = Runtime.getRuntime().availableProcessors();
+        parallel = Executors.newFixedThreadPool(cores);
+        single = Executors.newSingleThreadExecutor();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        parallel.shutdownNow();
+        single.shutdownNow();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long csvReader(Bytes bytes) throws Exception {
+        long count = 0;
+        try (CSVReader csv = new CSVReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            csv.readNext();
+            while (csv.readNext() != null) {
+                count++;
+            }
+        }
+        bytes.megabytes += megabytes;
+        return count;
+    }
+
+    @Benchmark
+    public long mappedOneThread(Bytes bytes) throws Exception {
+        long count = mapped(new MappedCsvParser(single, 1, SEGMENT_SIZE));
+        bytes.megabytes += megabytes;
+        return count;
+    }
+
+    @Benchmark
+    public long mappedAllCores(Bytes bytes) throws Exception {
+        long count = mapped(new MappedCsvParser(parallel, cores, SEGMENT_SIZE));
+        bytes.megabytes += megabytes;
+        return count;
+    }
+
+    private long mapped(MappedCsvParser parser) throws Exception {
+        long[] count = {0};
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            parser.parse(channel, MappedCsvParser.headerEnd(channel), segment -> {
+                count[0] += segment.rows().size();
+                return true;
+            });
+        }
+        return count[0];
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.flo_usr_demo.benchmark;
+
+import com.example.flo_usr_demo.dto.ImportSummaryDto;
+import com.example.flo_usr_demo.dto.UserCreateDto;
+import com.example.flo_usr_demo.service.UserImportService;
+import com.opencsv.CSVReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning an uploaded CSV into users, without the database:
+ * the list-building parse of /upload and the chunked streaming import of /upload/stream.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CsvUploadBenchmark {
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    private String csv;
+    private UserImportService importService;
+
+    @Setup
+    public void setUp() {
+        csv = BenchmarkData.csv(rows);
+        importService = new UserImportService();
+        BenchmarkData.inject(importService, "jdbcRepo", BenchmarkData.jdbcRepository());
+        BenchmarkData.inject(importService, "rowValidator", BenchmarkData.rowValidator());
+        BenchmarkData.inject(importService, "chunkSize", 1000);
+    }
+
+    /** Same parsing loop as UserController.uploadCsv: every row kept in a list. */
+    @Benchmark
+    public List<UserCreateDto> parseToList() throws Exception {
+        try (CSVReader reader = new CSVReader(new StringReader(csv))) {
+            List<UserCreateDto> dtos = new ArrayList<>();
+            String[] line;
+            reader.readNext();
+            while ((line = reader.readNext()) != null) {
+                dtos.add(new UserCreateDto(line[0], line[1], line[2], line[3]));
+            }
+            return dtos;
+        }
+    }
+
+    /** Streaming import with bounded chunks, each validated before it is inserted. */
+    @Benchmark
+    public ImportSummaryDto streamingImport() throws Exception {
+        return importService.importCsv(new StringReader(csv));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.flo_usr_demo.benchmark;
+
+import com.example.flo_usr_demo.dto.UserDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of serialising user lists as the controllers do: one JSON array, or NDJSON for the export.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonEncodingBenchmark {
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private ObjectMapper mapper;
+    private List<UserDto> users;
+
+    @Setup
+    public void setUp() {
+        // same defaults as the ObjectMapper configured by Spring Boot
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        users = BenchmarkData.userDtos(size);
+    }
+
+    @Benchmark
+    public byte[] jsonArray() throws IOException {
+        return mapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public void ndjson() throws IOException {
+        try (SequenceWriter writer = mapper.writer()
+                .withRootValueSeparator("\n")
+                .writeValues(OutputStream.nullOutputStream())) {
+            for (UserDto user : users) {
+                writer.write(user);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.flo_usr_demo.benchmark;
+
+import com.example.flo_usr_demo.dto.UserCreateDto;
+import com.example.flo_usr_demo.dto.UserDto;
+import com.example.flo_usr_demo.mapper.UserMapper;
+import com.example.flo_usr_demo.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the entity/DTO conversions done on every request by {@link UserMapper}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserMapperBenchmark {
+
+    private User entity;
+    private UserCreateDto createDto;
+
+    @Setup
+    public void setUp() {
+        entity = BenchmarkData.user(42);
+        createDto = BenchmarkData.createDtos(1).get(0);
+    }
+
+    @Benchmark
+    public UserDto toDto() {
+        return UserMapper.toDto(entity);
+    }
+
+    @Benchmark
+    public User toEntity() {
+        return UserMapper.toEntity(createDto);
+    }
+}
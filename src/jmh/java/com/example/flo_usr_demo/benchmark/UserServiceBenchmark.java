@@ -0,0 +1,47 @@
+package com.example.flo_usr_demo.benchmark;
+
+import com.example.flo_usr_demo.dto.UserCreateDto;
+import com.example.flo_usr_demo.dto.UserDto;
+import com.example.flo_usr_demo.service.UserCache;
+import com.example.flo_usr_demo.service.UserService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the collection and mapping work done by {@link UserService} around the repository,
+ * with the repository replaced by an in-memory stand-in.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserServiceBenchmark {
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private UserService service;
+    private List<UserCreateDto> toSave;
+
+    @Setup
+    public void setUp() {
+        service = new UserService();
+        BenchmarkData.inject(service, "repo", BenchmarkData.repository(BenchmarkData.users(size)));
+        BenchmarkData.inject(service, "cache", new UserCache(size, Duration.ofMinutes(5)));
+        toSave = BenchmarkData.createDtos(size);
+    }
+
+    /** Mapping of the search results into the response list. */
+    @Benchmark
+    public List<UserDto> search() {
+        return service.search("Name", null);
+    }
+
+    /** Bulk save: DTO to entity mapping, saveAll, cache eviction and mapping back. */
+    @Benchmark
+    public List<UserDto> saveAll() {
+        return service.saveAll(toSave);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.flo_usr_demo.benchmark;
+
+import com.example.flo_usr_demo.dto.UserDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON against CBOR for user lists, encoding and decoding, as a page body (one array) and as an export
+ * (NDJSON against a CBOR sequence). The payload sizes are printed once per trial in the benchmark output,
+ * as "payload bytes, 10000 users: json=..., cbor=..., ndjson=..., cbor-seq=...".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WireFormatBenchmark {
+
+    private static final TypeReference<List<UserDto>> USER_LIST = new TypeReference<>() {
+    };
+
+    @Param({"10000"})
+    private int size;
+
+    private ObjectMapper json;
+    private ObjectMapper cbor;
+    private List<UserDto> users;
+    private byte[] jsonArray;
+    private byte[] cborArray;
+    private byte[] ndjson;
+    private byte[] cborSeq;
+
+    @Setup
+    public void setUp() throws IOException {
+        // same defaults as the ObjectMapper and the CBOR converter configured by the application
+        json = Jackson2ObjectMapperBuilder.json().build();
+        cbor = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+        users = BenchmarkData.userDtos(size);
+        jsonArray = jsonArray();
+        cborArray = cborArray();
+        ndjson = ndjson();
+        cborSeq = cborSeq();
+        System.out.printf("payload bytes, %d users: json=%d, cbor=%d, ndjson=%d, cbor-seq=%d%n",
+                size, jsonArray.length, cborArray.length, ndjson.length, cborSeq.length);
+    }
+
+    @Benchmark
+    public byte[] jsonArray() throws IOException {
+        return json.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] cborArray() throws IOException {
+        return cbor.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public List<UserDto> jsonArrayDecode() throws IOException {
+        return json.readValue(jsonArray, USER_LIST);
+    }
+
+    @Benchmark
+    public List<UserDto> cborArrayDecode() throws IOException {
+        return cbor.readValue(cborArray, USER_LIST);
+    }
+
+    @Benchmark
+    public byte[] ndjson() throws IOException {
+        return sequence(json.writer().withRootValueSeparator("\n"));
+    }
+
+    @Benchmark
+    public byte[] cborSeq() throws IOException {
+        return sequence(cbor.writer());
+    }
+
+    @Benchmark
+    public void ndjsonDecode(Blackhole bh) throws IOException {
+        readSequence(json.readerFor(UserDto.class), ndjson, bh);
+    }
+
+    @Benchmark
+    public void cborSeqDecode(Blackhole bh) throws IOException {
+        readSequence(cbor.readerFor(UserDto.class), cborSeq, bh);
+    }
+
+    private byte[] sequence(ObjectWriter items) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * size);
+        try (SequenceWriter writer = items.writeValues(out)) {
+            for (UserDto user : users) {
+                writer.write(user);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void readSequence(ObjectReader reader, byte[] content, Blackhole bh) throws IOException {
+        try (MappingIterator<UserDto> it = reader.readValues(content)) {
+            while (it.hasNextValue()) {
+                bh.consume(it.nextValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.flo_usr_demo.loadtest;
+
+import com.example.flo_usr_demo.FloUsrDemoApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load test of the /api/users endpoints.
+ * <p>
+ * Starts an embedded PostgreSQL, creates the schema with {@code db/init/schema.sql}, seeds N users and boots
+ * the application on a random port, so that Flyway applies the later migrations exactly as on a database
+ * created by docker-compose. It then sends a mixed workload at a constant rate and reports, per endpoint,
+ * throughput and the p50/p99/p999 latencies recorded in HDR histograms.
+ * <p>
+ * Requests are issued on a fixed schedule and latency is measured from the scheduled start, so time spent
+ * waiting for a free client thread counts: a server that falls behind shows up in the percentiles instead
+ * of silently lowering the request rate (coordinated omission).
+ * <p>
+ * Configuration, as system properties ({@code -Ploadtest.*} with Gradle):
+ * <ul>
+ *     <li>{@code loadtest.users} - seeded users (default 100000)</li>
+ *     <li>{@code loadtest.rate} - requests per second (default 2000)</li>
+ *     <li>{@code loadtest.warmup} / {@code loadtest.duration} - seconds of warm-up and of measurement (default 15 / 60)</li>
+ *     <li>{@code loadtest.concurrency} - client threads (default 200)</li>
+ *     <li>{@code loadtest.mix} - weight of each operation, e.g. {@code GET_BY_ID=50,SEARCH=15}
+ *     (default {@value #DEFAULT_MIX})</li>
+ *     <li>{@code loadtest.upload-rows} - rows per uploaded CSV (default 100)</li>
+ *     <li>{@code loadtest.virtualThreads} - run the application with spring.threads.virtual.enabled (default false)</li>
+ *     <li>{@code loadtest.jdbcUrl}, {@code loadtest.username}, {@code loadtest.password} - use an existing
+ *     database instead of the embedded one; its users table is dropped and recreated</li>
+ *     <li>{@code loadtest.output} - directory of the reports (default build/loadtest)</li>
+ * </ul>
+ */
+public final class LoadTest {
+
+    static final String DEFAULT_MIX = "GET_BY_ID=50,LIST=5,SEARCH=15,BY_DOMAIN=5,CREATE=10,UPDATE=10,UPLOAD=5";
+
+    private static final Path SCHEMA = Path.of("db/init/schema.sql");
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final long users = Long.getLong("loadtest.users", 100_000);
+    private final int rate = Integer.getInteger("loadtest.rate", 2000);
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmup", 15);
+    private final int durationSeconds = Integer.getInteger("loadtest.duration", 60);
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 200);
+    private final int uploadRows = Integer.getInteger("loadtest.upload-rows", 100);
+    private final boolean virtualThreads = Boolean.getBoolean("loadtest.virtualThreads");
+    private final Map<Operation, Integer> mix = parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX));
+    private final Path output = Path.of(System.getProperty("loadtest.output", "build/loadtest"));
+
+    private final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    private LoadTest() {
+        for (Operation op : Operation.values()) {
+            latencies.put(op, new Recorder(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(op, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest().run();
+        // the HTTP client and the application leave non-daemon threads behind
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        String jdbcUrl = System.getProperty("loadtest.jdbcUrl");
+        String username = System.getProperty("loadtest.username", "postgres");
+        String password = System.getProperty("loadtest.password", "postgres");
+        EmbeddedPostgres embedded = null;
+        if (jdbcUrl == null) {
+            try {
+                embedded = EmbeddedPostgres.builder().start();
+            } catch (IOException | IllegalStateException e) {
+                throw new IllegalStateException("Cannot start the embedded PostgreSQL (it refuses to run as root); "
+                        + "pass -Ploadtest.jdbcUrl=... to use an existing database", e);
+            }
+            jdbcUrl = embedded.getJdbcUrl("postgres", "postgres");
+        }
+
+        try {
+            log("Seeding %,d users", users);
+            seed(jdbcUrl, username, password);
+
+            ConfigurableApplicationContext app = new SpringApplicationBuilder(FloUsrDemoApplication.class)
+                    .web(WebApplicationType.SERVLET)
+                    // command line arguments, so that they override application.properties
+                    .run("--spring.datasource.url=" + jdbcUrl,
+                            "--spring.datasource.username=" + username,
+                            "--spring.datasource.password=" + password,
+                            "--spring.r2dbc.url=" + r2dbcUrl(jdbcUrl),
+                            "--spring.r2dbc.username=" + username,
+                            "--spring.r2dbc.password=" + password,
+                            "--server.port=0",
+                            "--spring.threads.virtual.enabled=" + virtualThreads,
+                            "--spring.main.banner-mode=off",
+                            "--logging.level.root=WARN");
+            try {
+                int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+                Operation.Context ctx = new Operation.Context("http://localhost:" + port, users, uploadRows);
+                log("Application started on port %d (%s threads), %d req/s for %ds (+%ds warm-up), mix %s",
+                        port, virtualThreads ? "virtual" : "platform", rate, durationSeconds, warmupSeconds, mix);
+                Map<Operation, Histogram> results = drive(ctx);
+                report(results);
+            } finally {
+                app.close();
+            }
+        } finally {
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------
+    // Database
+    // ----------------------------------------------------------------
+
+    /**
+     * The R2DBC URL of the same database, for the reactive read path.
+     */
+    private static String r2dbcUrl(String jdbcUrl) {
+        int query = jdbcUrl.indexOf('?');
+        return "r2dbc:" + (query < 0 ? jdbcUrl : jdbcUrl.substring(0, query)).substring("jdbc:".length());
+    }
+
+    /**
+     * Recreate the users table from db/init/schema.sql and fill it with generated users.
+     * The Flyway history is dropped too, so the application baselines and migrates the fresh table.
+     */
+    private void seed(String jdbcUrl, String username, String password) throws IOException, SQLException {
+        try (Connection conn = DriverManager.getConnection(jdbcUrl, username, password)) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("DROP TABLE IF EXISTS flyway_schema_history");
+                st.execute(Files.readString(SCHEMA));
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO users (first_name, last_name, email, address) "
+                            + "SELECT (?::text[])[1 + g % 20], (?::text[])[1 + g / 20 % 20], "
+                            + "'user' || g || '@' || (?::text[])[1 + g % 5], 'Via Roma ' || g || ', Roma' "
+                            + "FROM generate_series(1, ?) g ORDER BY g")) {
+                ps.setArray(1, conn.createArrayOf("text", Operation.FIRST_NAMES));
+                ps.setArray(2, conn.createArrayOf("text", Operation.LAST_NAMES));
+                ps.setArray(3, conn.createArrayOf("text", Operation.DOMAINS));
+                ps.setLong(4, users);
+                ps.executeUpdate();
+            }
+            try (Statement st = conn.createStatement()) {
+                st.execute("ANALYZE users");
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------
+    // Workload
+    // ----------------------------------------------------------------
+
+    private Map<Operation, Histogram> drive(Operation.Context ctx) throws InterruptedException {
+        Operation[] schedule = weightedSchedule();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long warmupEnd = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+        boolean measuring = false;
+        long measureStart = warmupEnd;
+
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * interval;
+            if (scheduled >= end) {
+                break;
+            }
+            if (!measuring && scheduled >= warmupEnd) {
+                // drop what was recorded during the warm-up
+                latencies.values().forEach(Recorder::getIntervalHistogram);
+                errors.values().forEach(LongAdder::reset);
+                measuring = true;
+                measureStart = System.nanoTime();
+                log("Warm-up done, measuring");
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation op = schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+            workers.execute(() -> send(client, ctx, op, scheduled));
+        }
+
+        workers.shutdown();
+        if (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+            log("Requests still pending after 1 minute, abandoning them");
+            workers.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - measureStart) / 1e9;
+
+        Map<Operation, Histogram> results = new EnumMap<>(Operation.class);
+        for (Operation op : Operation.values()) {
+            Histogram h = latencies.get(op).getIntervalHistogram();
+            h.setStartTimeStamp(0);
+            h.setEndTimeStamp((long) (seconds * 1000));
+            results.put(op, h);
+        }
+        return results;
+    }
+
+    private void send(HttpClient client, Operation.Context ctx, Operation op, long scheduled) {
+        try {
+            HttpResponse<Void> response = client.send(op.request(ctx), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 400) {
+                errors.get(op).increment();
+            }
+        } catch (IOException e) {
+            errors.get(op).increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled);
+        latencies.get(op).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+    }
+
+    /**
+     * Expand the mix into an array where each operation appears as many times as its weight.
+     */
+    private Operation[] weightedSchedule() {
+        List<Operation> schedule = new ArrayList<>();
+        mix.forEach((op, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                schedule.add(op);
+            }
+        });
+        if (schedule.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix selects no operation");
+        }
+        return schedule.toArray(Operation[]::new);
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] kv = entry.trim().split("=");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Invalid loadtest.mix entry: " + entry);
+            }
+            weights.put(Operation.valueOf(kv[0].trim()), Integer.parseInt(kv[1].trim()));
+        }
+        return weights;
+    }
+
+    // ----------------------------------------------------------------
+    // Report
+    // ----------------------------------------------------------------
+
+    /**
+     * Print a summary table and write, under build/loadtest/&lt;timestamp&gt;-&lt;commit&gt;, a summary.json
+     * to compare runs and the full percentile distribution of every endpoint (.hgrm, in milliseconds).
+     */
+    private void report(Map<Operation, Histogram> results) throws IOException {
+        String commit = System.getProperty("loadtest.commit", "unknown");
+        Path dir = output.resolve(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))
+                + "-" + commit + (virtualThreads ? "-virtual" : ""));
+        Files.createDirectories(dir);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("commit", commit);
+        summary.put("timestamp", Instant.now().toString());
+        summary.put("users", users);
+        summary.put("targetRate", rate);
+        summary.put("durationSeconds", durationSeconds);
+        summary.put("concurrency", concurrency);
+        summary.put("virtualThreads", virtualThreads);
+        summary.put("mix", mix);
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        summary.put("endpoints", endpoints);
+
+        // all histograms cover the same measured interval
+        double seconds = results.values().iterator().next().getEndTimeStamp() / 1000.0;
+        PrintStream out = System.out;
+        out.printf("%n%-10s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        long total = 0;
+        for (Map.Entry<Operation, Histogram> e : results.entrySet()) {
+            Operation op = e.getKey();
+            Histogram h = e.getValue();
+            if (h.getTotalCount() == 0) {
+                continue;
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requests", h.getTotalCount());
+            stats.put("errors", errors.get(op).sum());
+            stats.put("throughput", h.getTotalCount() / seconds);
+            stats.put("p50Millis", millis(h.getValueAtPercentile(50)));
+            stats.put("p99Millis", millis(h.getValueAtPercentile(99)));
+            stats.put("p999Millis", millis(h.getValueAtPercentile(99.9)));
+            stats.put("maxMillis", millis(h.getMaxValue()));
+            endpoints.put(op.name(), stats);
+            total += h.getTotalCount();
+
+            out.printf("%-10s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", op, h.getTotalCount(), errors.get(op).sum(),
+                    stats.get("throughput"), stats.get("p50Millis"), stats.get("p99Millis"),
+                    stats.get("p999Millis"), stats.get("maxMillis"));
+            try (PrintStream hgrm = new PrintStream(Files.newOutputStream(dir.resolve(op.name().toLowerCase() + ".hgrm")),
+                    false, StandardCharsets.UTF_8)) {
+                h.outputPercentileDistribution(hgrm, 1000.0);
+            }
+        }
+        summary.put("totalThroughput", total / seconds);
+        out.printf("%-10s %9d %7s %9.1f%n%n", "total", total, "", total / seconds);
+
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(dir.resolve("summary.json").toFile(), summary);
+        log("Report written to %s", dir);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.printf("[loadtest] " + format + "%n", args);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.flo_usr_demo.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The requests of the mixed workload, one per endpoint being measured.
+ * <p>
+ * Requests refer to the users seeded by {@link LoadTest}: IDs 1..N, first and last names taken from
+ * {@link #FIRST_NAMES}/{@link #LAST_NAMES} and emails "user{id}@{domain}".
+ */
+enum Operation {
+
+    GET_BY_ID {
+        @Override
+        HttpRequest request(Context ctx) {
+            return get(ctx, "/api/users/" + ctx.randomId());
+        }
+    },
+    LIST {
+        @Override
+        HttpRequest request(Context ctx) {
+            return get(ctx, "/api/users?limit=100");
+        }
+    },
+    SEARCH {
+        @Override
+        HttpRequest request(Context ctx) {
+            String name = FIRST_NAMES[ThreadLocalRandom.current().nextInt(FIRST_NAMES.length)];
+            int from = ThreadLocalRandom.current().nextInt(name.length() - 2);
+            return get(ctx, "/api/users?limit=100&firstName=" + name.substring(from, from + 3).toLowerCase(Locale.ROOT));
+        }
+    },
+    BY_DOMAIN {
+        @Override
+        HttpRequest request(Context ctx) {
+            return get(ctx, "/api/users/search/by-domain?limit=100&domain="
+                    + DOMAINS[ThreadLocalRandom.current().nextInt(DOMAINS.length)]);
+        }
+    },
+    CREATE {
+        @Override
+        HttpRequest request(Context ctx) {
+            long n = ctx.created.incrementAndGet();
+            return json(ctx, "/api/users").POST(body("Load", "Test", ctx.runId + "-" + n + "@loadtest.example", "Via Test " + n)).build();
+        }
+    },
+    UPDATE {
+        @Override
+        HttpRequest request(Context ctx) {
+            long id = ctx.randomId();
+            // keep the seeded email so that it stays unique, change only the address
+            return json(ctx, "/api/users/" + id)
+                    .PUT(body(firstName(id), lastName(id), email(id), "Via Aggiornata " + System.nanoTime()))
+                    .build();
+        }
+    },
+    UPLOAD {
+        @Override
+        HttpRequest request(Context ctx) {
+            long batch = ctx.uploads.incrementAndGet();
+            StringBuilder csv = new StringBuilder("firstName,lastName,email,address\n");
+            for (int i = 0; i < ctx.uploadRows; i++) {
+                csv.append("Upload,Test,").append(ctx.runId).append("-u").append(batch).append('-').append(i)
+                   .append("@loadtest.example,Via Upload ").append(i).append('\n');
+            }
+            String part = "--" + BOUNDARY + "\r\n"
+                    + "Content-Disposition: form-data; name=\"file\"; filename=\"users.csv\"\r\n"
+                    + "Content-Type: text/csv\r\n\r\n"
+                    + csv
+                    + "\r\n--" + BOUNDARY + "--\r\n";
+            return HttpRequest.newBuilder(URI.create(ctx.baseUrl + "/api/users/upload/stream"))
+                    .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                    .POST(HttpRequest.BodyPublishers.ofString(part, StandardCharsets.UTF_8))
+                    .build();
+        }
+    };
+
+    static final String[] FIRST_NAMES = {
+            "Alice", "Bruno", "Carla", "Davide", "Elena", "Fabio", "Giorgia", "Luca", "Maria", "Nicola",
+            "Paola", "Riccardo", "Sara", "Tommaso", "Valentina", "Andrea", "Beatrice", "Claudio", "Federica", "Marco"
+    };
+
+    static final String[] LAST_NAMES = {
+            "Rossi", "Bianchi", "Verdi", "Neri", "Greco", "Russo", "Esposito", "Fontana", "Conti", "Ferrari",
+            "Romano", "Colombo", "Ricci", "Marino", "Bruno", "Gallo", "Costa", "Giordano", "Mancini", "Lombardi"
+    };
+
+    static final String[] DOMAINS = {"example.com", "gmail.com", "libero.it", "yahoo.com", "outlook.com"};
+
+    private static final String BOUNDARY = "loadtest-boundary";
+
+    /**
+     * Build the next request of this kind.
+     */
+    abstract HttpRequest request(Context ctx);
+
+    static String firstName(long id) {
+        return FIRST_NAMES[(int) (id % FIRST_NAMES.length)];
+    }
+
+    static String lastName(long id) {
+        return LAST_NAMES[(int) (id / FIRST_NAMES.length % LAST_NAMES.length)];
+    }
+
+    static String email(long id) {
+        return "user" + id + "@" + DOMAINS[(int) (id % DOMAINS.length)];
+    }
+
+    private static HttpRequest get(Context ctx, String path) {
+        return HttpRequest.newBuilder(URI.create(ctx.baseUrl + path)).GET().build();
+    }
+
+    private static HttpRequest.Builder json(Context ctx, String path) {
+        return HttpRequest.newBuilder(URI.create(ctx.baseUrl + path)).header("Content-Type", "application/json");
+    }
+
+    private static HttpRequest.BodyPublisher body(String firstName, String lastName, String email, String address) {
+        return HttpRequest.BodyPublishers.ofString("{\"firstName\":\"" + firstName + "\",\"lastName\":\"" + lastName
+                + "\",\"email\":\"" + email + "\",\"address\":\"" + address + "\"}");
+    }
+
+    /**
+     * State shared by the requests of one run.
+     */
+    static final class Context {
+        final String baseUrl;
+        final long seededUsers;
+        final int uploadRows;
+        /** Makes the emails created by this run unique across runs on the same database. */
+        final String runId = Long.toString(System.currentTimeMillis(), 36);
+        final AtomicLong created = new AtomicLong();
+        final AtomicLong uploads = new AtomicLong();
+
+        Context(String baseUrl, long seededUsers, int uploadRows) {
+            this.baseUrl = baseUrl;
+            this.seededUsers = seededUsers;
+            this.uploadRows = uploadRows;
+        }
+
+        long randomId() {
+            return 1 + ThreadLocalRandom.current().nextLong(seededUsers);
+        }
+    }
+}
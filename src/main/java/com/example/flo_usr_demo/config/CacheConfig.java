@@ -0,0 +1,49 @@
+package com.example.flo_usr_demo.config;
+
+import com.example.flo_usr_demo.dto.CursorPage;
+import com.example.flo_usr_demo.dto.UserDto;
+import com.example.flo_usr_demo.service.SingleFlight;
+import com.example.flo_usr_demo.service.UserCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Creates the in-process user cache and publishes its hit, miss and eviction counters
+ * as "cache.*" metrics tagged cache=users (see /actuator/metrics).
+ * Also creates the {@link SingleFlight}s that collapse concurrent identical reads reaching the database,
+ * measured by the "singleflight.*" metrics.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public UserCache userCache(@Value("${app.cache.users.maximum-size:100000}") long maximumSize,
+                               @Value("${app.cache.users.ttl:5m}") Duration ttl,
+                               MeterRegistry registry) {
+        UserCache cache = new UserCache(maximumSize, ttl);
+        CaffeineCacheMetrics.monitor(registry, cache.nativeCache(), "users");
+        return cache;
+    }
+
+    /** Loads of a single user by ID, on cache misses. */
+    @Bean
+    public SingleFlight<Long, Optional<UserDto>> userLoads(@Value("${app.singleflight.enabled:true}") boolean enabled,
+                                                           MeterRegistry registry) {
+        return new SingleFlight<>("users.get", enabled, registry);
+    }
+
+    /** Pages of name and domain searches, keyed by the query and its page parameters. */
+    @Bean
+    public SingleFlight<List<Object>, CursorPage<UserDto>> userSearches(
+            @Value("${app.singleflight.enabled:true}") boolean enabled,
+            MeterRegistry registry) {
+        return new SingleFlight<>("users.search", enabled, registry);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.flo_usr_demo.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * CBOR (RFC 8949), a binary encoding of the JSON data model, as an alternative wire format of the REST API:
+ * clients sending {@code Accept: application/cbor} get the same objects as with JSON, more compact and cheaper
+ * to encode, and can send {@code Content-Type: application/cbor} request bodies.
+ * <p>
+ * The converter is built from Spring Boot's {@link Jackson2ObjectMapperBuilder}, so CBOR bodies follow the
+ * same {@code spring.jackson.*} settings as JSON ones; Spring Boot puts it in place of the default one.
+ */
+@Configuration
+public class CborConfig {
+
+    /** A CBOR sequence (RFC 8742): CBOR items one after the other, each delimiting itself. */
+    public static final MediaType APPLICATION_CBOR_SEQ = new MediaType("application", "cbor-seq");
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
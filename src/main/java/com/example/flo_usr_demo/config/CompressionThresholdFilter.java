@@ -0,0 +1,138 @@
+package com.example.flo_usr_demo.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Makes {@code server.compression.min-response-size} effective for the responses written by Spring MVC.
+ * <p>
+ * Tomcat decides whether to gzip a response when it is committed, and only skips small responses whose
+ * length is known by then. The JSON message converters flush the stream after writing the body, which commits
+ * the response before Tomcat could set its Content-Length, so every response was compressed however small.
+ * This filter ignores flushes until the response has reached the minimum size: a smaller response is committed
+ * when it ends, with its length, and is sent as it is; a larger one is streamed and compressed as before.
+ * <p>
+ * Streaming formats are flushed as soon as they are written, whatever their size: their flushes push each item
+ * to the client (an NDJSON validation report, a CBOR sequence, server-sent events), and deferring them would hold
+ * the first items back until the threshold is reached.
+ */
+@Component
+@ConditionalOnProperty(name = "server.compression.enabled", havingValue = "true")
+public class CompressionThresholdFilter extends OncePerRequestFilter {
+
+    /** Content types whose flushes are never deferred. */
+    private static final List<MediaType> STREAMING_TYPES = List.of(
+            MediaType.APPLICATION_NDJSON, CborConfig.APPLICATION_CBOR_SEQ, MediaType.TEXT_EVENT_STREAM);
+
+    @Value("${server.compression.min-response-size:2KB}")
+    private DataSize minResponseSize;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(request, new DeferredFlushResponse(response, minResponseSize.toBytes()));
+    }
+
+    private static final class DeferredFlushResponse extends HttpServletResponseWrapper {
+
+        private final long threshold;
+        private DeferredFlushOutputStream out;
+
+        DeferredFlushResponse(HttpServletResponse response, long threshold) {
+            super(response);
+            this.threshold = threshold;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (out == null) {
+                out = new DeferredFlushOutputStream(super.getOutputStream(), isStreaming() ? 0 : threshold);
+            }
+            return out;
+        }
+
+        private boolean isStreaming() {
+            String contentType = getContentType();
+            if (contentType == null) {
+                return false;
+            }
+            try {
+                MediaType type = MediaType.parseMediaType(contentType);
+                return STREAMING_TYPES.stream().anyMatch(streaming -> streaming.includes(type));
+            } catch (InvalidMediaTypeException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            // Spring's ServletServerHttpResponse flushes the response, not only its stream
+            if (out == null) {
+                super.flushBuffer();
+            } else {
+                out.flush();
+            }
+        }
+    }
+
+    private static final class DeferredFlushOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream out;
+        private final long threshold;
+        private long written;
+
+        DeferredFlushOutputStream(ServletOutputStream out, long threshold) {
+            this.out = out;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            written += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (written >= threshold) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return out.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            out.setWriteListener(listener);
+        }
+    }
+}
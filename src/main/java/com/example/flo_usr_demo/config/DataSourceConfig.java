@@ -0,0 +1,108 @@
+package com.example.flo_usr_demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Declares the JDBC side explicitly now that R2DBC is also on the classpath.
+ * <p>
+ * Spring Boot stops auto-configuring the JDBC {@code DataSource} as soon as an R2DBC
+ * {@code ConnectionFactory} exists, and the JPA transaction manager when any other transaction manager
+ * exists. Both are declared here, bound to the usual {@code spring.datasource.*} properties, and the JPA
+ * transaction manager is primary so plain {@code @Transactional} methods keep using it; the reactive read
+ * path does not use declarative transactions.
+ * <p>
+ * Read replicas are optional, one entry per replica under {@code app.datasource.replicas[n]} with the same
+ * url/username/password keys as {@code spring.datasource} and its own Hikari pool under {@code .hikari}.
+ * When at least one is configured, read-only transactions ({@code @Transactional(readOnly = true)}, which
+ * includes the read methods of Spring Data repositories) take their connection from a replica, through the
+ * {@link ReplicaRoutingDataSource}, and everything else uses the primary. The choice is made when the
+ * transaction first needs a connection, once Spring has marked it read-only, by a lazy connection proxy.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                                      Environment environment,
+                                                      MeterRegistry registry,
+                                                      @Value("${app.datasource.replica.max-lag:5s}") Duration maxLag,
+                                                      @Value("${app.datasource.replica.check-interval:2s}") Duration checkInterval) {
+        return new ReplicaRoutingDataSource(primary, replicaPools(environment, registry), maxLag, checkInterval, registry);
+    }
+
+    /**
+     * The data source used by JPA, JdbcTemplate and Flyway: the primary pool,
+     * or a proxy that sends read-only transactions to the replicas.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                 ReplicaRoutingDataSource replicas) {
+        if (!replicas.hasReplicas()) {
+            return primary;
+        }
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(replicas);
+        return proxy;
+    }
+
+    @Bean
+    @Primary
+    public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+
+    /**
+     * One Hikari pool per entry of {@code app.datasource.replicas}, named replica-&lt;n&gt; unless configured,
+     * read-only, and publishing the same hikaricp.* metrics as the primary pool.
+     */
+    private static List<HikariDataSource> replicaPools(Environment environment, MeterRegistry registry) {
+        Binder binder = Binder.get(environment);
+        List<DataSourceProperties> entries = binder.bind("app.datasource.replicas",
+                Bindable.listOf(DataSourceProperties.class)).orElse(List.of());
+        List<HikariDataSource> pools = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            HikariDataSource pool = entries.get(i).initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            pool.setPoolName("replica-" + i);
+            binder.bind("app.datasource.replicas[" + i + "].hikari", Bindable.ofInstance(pool));
+            pool.setReadOnly(true);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            pools.add(pool);
+        }
+        return pools;
+    }
+}
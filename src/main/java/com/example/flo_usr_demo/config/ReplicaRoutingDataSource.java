@@ -0,0 +1,204 @@
+package com.example.flo_usr_demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read-only side of the application's {@code DataSource}: hands out connections to the read replicas
+ * in round robin, skipping those that are unreachable or lag behind the primary by more than the
+ * configured maximum, and falls back to the primary when no replica is usable.
+ * <p>
+ * Replica state is refreshed in the background every check interval: the lag is the time since the last
+ * replayed transaction, or zero when the replica has replayed everything it received (an idle primary
+ * produces no new transactions). A replica that fails to hand out a connection is skipped until the next
+ * successful check.
+ * <p>
+ * Published metrics: "datasource.replica.lag" (seconds) and "datasource.replica.available" (1 or 0)
+ * tagged replica=&lt;pool name&gt;, and "datasource.replica.fallbacks", the reads sent to the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    /** Lookup key of the primary, used when no replica is usable. */
+    public static final String PRIMARY = "primary";
+
+    /**
+     * Seconds of replication lag; 0 on a server that is not a standby.
+     * pg_last_wal_receive_lsn() is null without streaming replication, in which case the replay time is used.
+     */
+    private static final String LAG_SQL =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() " +
+            "OR pg_last_wal_receive_lsn() <= pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 'Infinity') END";
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter fallbacks;
+    private ScheduledExecutorService monitor;
+
+    /**
+     * @param primary       where reads go when no replica is usable
+     * @param replicas      one connection pool per replica; may be empty
+     * @param maxLag        replicas lagging more than this are skipped
+     * @param checkInterval how often the lag of each replica is checked
+     * @param registry      where the metrics are published
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas,
+                                    Duration maxLag, Duration checkInterval, MeterRegistry registry) {
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (Replica replica : this.replicas) {
+            targets.put(replica.name, replica.pool);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .description("Replication lag of the replica, in seconds")
+                    .baseUnit("seconds")
+                    .tags("replica", replica.name)
+                    .register(registry);
+            Gauge.builder("datasource.replica.available", replica, r -> r.available ? 1 : 0)
+                    .description("Whether read-only transactions are sent to the replica")
+                    .tags("replica", replica.name)
+                    .register(registry);
+        }
+        this.fallbacks = Counter.builder("datasource.replica.fallbacks")
+                .description("Read-only connections taken from the primary because no replica was usable")
+                .register(registry);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    /** @return whether any replica is configured */
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    /**
+     * Check every replica once, then keep checking them in the background.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        if (replicas.isEmpty()) {
+            return;
+        }
+        refresh();
+        monitor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replica-lag-"));
+        long period = checkInterval.toMillis();
+        monitor.scheduleWithFixedDelay(this::refresh, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Measure the lag of every replica and update which of them are usable.
+     */
+    public void refresh() {
+        for (Replica replica : replicas) {
+            try (Connection con = replica.pool.getConnection();
+                 Statement st = con.createStatement();
+                 ResultSet rs = st.executeQuery(LAG_SQL)) {
+                rs.next();
+                replica.lagSeconds = rs.getDouble(1);
+                boolean usable = replica.lagSeconds <= maxLag.toMillis() / 1000.0;
+                if (usable != replica.available) {
+                    log.info("Replica {} {} (lag {}s)", replica.name, usable ? "in use" : "skipped", replica.lagSeconds);
+                }
+                replica.available = usable;
+            } catch (SQLException | RuntimeException e) {
+                markDown(replica, e);
+            }
+        }
+    }
+
+    /**
+     * The next usable replica in round robin, or the primary.
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        int n = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(n, 1));
+        for (int i = 0; i < n; i++) {
+            Replica replica = replicas.get((start + i) % n);
+            if (replica.available) {
+                return replica.name;
+            }
+        }
+        fallbacks.increment();
+        return PRIMARY;
+    }
+
+    /**
+     * Take a connection from the chosen replica; if it fails, skip that replica and read from the primary.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        DataSource target = getResolvedDataSources().get(key);
+        if (PRIMARY.equals(key)) {
+            return target.getConnection();
+        }
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            replicas.stream().filter(r -> r.name.equals(key)).forEach(r -> markDown(r, e));
+            fallbacks.increment();
+            return getResolvedDefaultDataSource().getConnection();
+        }
+    }
+
+    private static void markDown(Replica replica, Exception cause) {
+        if (replica.available) {
+            log.warn("Replica {} skipped: {}", replica.name, cause.getMessage());
+        }
+        replica.available = false;
+        replica.lagSeconds = Double.NaN;
+    }
+
+    /**
+     * Stop the lag checks and close the replica pools.
+     */
+    @Override
+    public void close() {
+        if (monitor != null) {
+            monitor.shutdownNow();
+        }
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private static final class Replica {
+        final String name;
+        final HikariDataSource pool;
+        volatile boolean available;
+        volatile double lagSeconds = Double.NaN;
+
+        Replica(HikariDataSource pool) {
+            this.name = pool.getPoolName();
+            this.pool = pool;
+        }
+    }
+}
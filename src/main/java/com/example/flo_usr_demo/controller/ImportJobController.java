@@ -0,0 +1,123 @@
+package com.example.flo_usr_demo.controller;
+
+import com.example.flo_usr_demo.dto.ImportJobDto;
+import com.example.flo_usr_demo.exception.BadRequestException;
+import com.example.flo_usr_demo.exception.ConflictException;
+import com.example.flo_usr_demo.exception.NotFoundException;
+import com.example.flo_usr_demo.exception.TooManyRequestsException;
+import com.example.flo_usr_demo.mapper.ImportJobMapper;
+import com.example.flo_usr_demo.service.ImportJob;
+import com.example.flo_usr_demo.service.ImportJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * REST controller for asynchronous CSV import jobs.
+ */
+@RestController
+@RequestMapping("/api/users/import-jobs")
+public class ImportJobController {
+
+    @Autowired
+    private ImportJobService jobs;
+
+    /**
+     * Submit a CSV file for asynchronous import.
+     * Returns immediately; progress is available at the URI in the Location header.
+     * Submitting again a file whose import was interrupted resumes it after the last committed chunk;
+     * a file already imported completely is skipped unless restart is true.
+     * Expects columns: firstName,lastName,email,address
+     *
+     * @param file    the uploaded CSV file, optionally gzip or zstd compressed
+     * @param restart true to import the file from the first row even if it was imported before
+     * @return 202 with the queued job
+     * @throws ConflictException        if the same file is already being imported
+     * @throws TooManyRequestsException if too many imports are already running or queued
+     * @example curl -X POST "http://localhost:8080/api/users/import-jobs" -F "file=@users.csv"
+     */
+    @PostMapping
+    public ResponseEntity<ImportJobDto> submit(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(name = "restart", defaultValue = "false") boolean restart
+    ) throws IOException {
+        return accepted(jobs.submit(file, restart));
+    }
+
+    /**
+     * Import a CSV file that is already on the server, e.g. dropped there by a batch host, without uploading it.
+     * The file is read in place and must be inside the directory configured in {@code app.import.server-dir};
+     * otherwise it behaves like an uploaded file, resumption included. The file is hashed by the job, so the
+     * request returns right away however large the file; the same file already being imported makes the job fail.
+     *
+     * @param path    the path of the file, relative to the import directory
+     * @param restart true to import the file from the first row even if it was imported before
+     * @return 202 with the queued job
+     * @throws BadRequestException      if server-side imports are disabled or the path is outside the import directory
+     * @throws NotFoundException        if the file does not exist
+     * @throws TooManyRequestsException if too many imports are already running or queued
+     * @example curl -X POST "http://localhost:8080/api/users/import-jobs/server-file?path=users-2024.csv"
+     */
+    @PostMapping("/server-file")
+    public ResponseEntity<ImportJobDto> submitServerFile(
+            @RequestParam("path") String path,
+            @RequestParam(name = "restart", defaultValue = "false") boolean restart
+    ) throws IOException {
+        return accepted(jobs.submitServerFile(path, restart));
+    }
+
+    /**
+     * List known import jobs, most recent first.
+     *
+     * @return list of jobs with their progress
+     * @example curl -X GET "http://localhost:8080/api/users/import-jobs"
+     */
+    @GetMapping
+    public List<ImportJobDto> list() {
+        return jobs.list().stream()
+                .map(ImportJobMapper::toDto)
+                .toList();
+    }
+
+    /**
+     * Poll the progress of an import job.
+     *
+     * @param id the job ID
+     * @return job status, row counters, throughput and errors
+     * @throws NotFoundException if the job is unknown
+     * @example curl -X GET "http://localhost:8080/api/users/import-jobs/{id}"
+     */
+    @GetMapping("/{id}")
+    public ImportJobDto get(@PathVariable String id) {
+        return jobs.get(id)
+                .map(ImportJobMapper::toDto)
+                .orElseThrow(() -> new NotFoundException("Import job not found with id: " + id));
+    }
+
+    /**
+     * Cancel an import job. Rows already persisted are kept.
+     *
+     * @param id the job ID
+     * @return 202 with the job in its final state
+     * @throws NotFoundException if the job is unknown
+     * @example curl -X DELETE "http://localhost:8080/api/users/import-jobs/{id}"
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ImportJobDto> cancel(@PathVariable String id) {
+        return jobs.cancel(id)
+                .map(job -> ResponseEntity.accepted().body(ImportJobMapper.toDto(job)))
+                .orElseThrow(() -> new NotFoundException("Import job not found with id: " + id));
+    }
+
+    private static ResponseEntity<ImportJobDto> accepted(ImportJob job) {
+        return ResponseEntity
+                .accepted()
+                .location(URI.create("/api/users/import-jobs/" + job.getId()))
+                .body(ImportJobMapper.toDto(job));
+    }
+}
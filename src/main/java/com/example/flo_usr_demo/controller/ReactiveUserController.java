@@ -0,0 +1,87 @@
+package com.example.flo_usr_demo.controller;
+
+import com.example.flo_usr_demo.dto.UserDto;
+import com.example.flo_usr_demo.exception.NotFoundException;
+import com.example.flo_usr_demo.service.ReactiveUserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-only REST controller serving users through the non-blocking R2DBC path.
+ * <p>
+ * Requests are handled asynchronously: no servlet thread is held while the database works.
+ * Multi-user responses requested as {@code application/x-ndjson} are streamed one user per line, and the
+ * next rows are only fetched from PostgreSQL as the client consumes the previous ones; as
+ * {@code application/json} they are collected into a single array first.
+ * Writes stay on {@link UserController}.
+ */
+@RestController
+@RequestMapping("/api/reactive/users")
+public class ReactiveUserController {
+
+    @Autowired
+    private ReactiveUserService svc;
+
+    /**
+     * Retrieve a single user by ID.
+     *
+     * @param id the ID of the user to retrieve
+     * @return the user DTO
+     * @throws NotFoundException if user is not found
+     * @example curl -X GET "http://localhost:8080/api/reactive/users/1"
+     */
+    @GetMapping("/{id}")
+    public Mono<UserDto> get(@PathVariable Long id) {
+        return svc.get(id);
+    }
+
+    /**
+     * Search users by name fragments, in ID order, one page at a time.
+     * As on {@link UserController}, the cursor of the next page is returned in the X-Next-Cursor header
+     * and as a Link rel="next", both absent on the last page; the cursors of the two APIs are interchangeable.
+     *
+     * @param firstName optional first name fragment
+     * @param lastName  optional last name fragment
+     * @param cursor    optional cursor returned with the previous page
+     * @param limit     optional page size, capped to the configured maximum
+     * @return the matching users
+     * @example curl -H "Accept: application/x-ndjson" "http://localhost:8080/api/reactive/users?firstName=ali&limit=50"
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<Flux<UserDto>>> search(
+            @RequestParam(name = "firstName", required = false) String firstName,
+            @RequestParam(name = "lastName", required = false) String lastName,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", required = false) Integer limit
+    ) {
+        // built here: the page is assembled on an R2DBC thread, where the current request is not known
+        UriComponentsBuilder self = ServletUriComponentsBuilder.fromCurrentRequest();
+        return svc.searchPage(firstName, lastName, cursor, limit).map(page -> {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.nextCursor() != null) {
+                String next = self.replaceQueryParam("cursor", page.nextCursor()).build().toUriString();
+                response.header(UserController.NEXT_CURSOR_HEADER, page.nextCursor())
+                        .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            }
+            return response.body(page.items());
+        });
+    }
+
+    /**
+     * Stream all users as NDJSON, one JSON user per line.
+     *
+     * @return all users
+     * @example curl -X GET "http://localhost:8080/api/reactive/users/export" -o users.ndjson
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserDto> export() {
+        return svc.export();
+    }
+}
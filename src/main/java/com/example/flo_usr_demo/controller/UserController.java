@@ -1,60 +1,129 @@
 package com.example.flo_usr_demo.controller;
 
+import com.example.flo_usr_demo.config.CborConfig;
+import com.example.flo_usr_demo.dto.CursorPage;
+import com.example.flo_usr_demo.dto.ImportSummaryDto;
+import com.example.flo_usr_demo.dto.UpsertSummaryDto;
+import com.example.flo_usr_demo.dto.UserBatchDto;
 import com.example.flo_usr_demo.dto.UserCreateDto;
 import com.example.flo_usr_demo.dto.UserDto;
+import com.example.flo_usr_demo.dto.UserIdsDto;
+import com.example.flo_usr_demo.dto.UserPatchDto;
+import com.example.flo_usr_demo.exception.BadRequestException;
 import com.example.flo_usr_demo.exception.NotFoundException;
+import com.example.flo_usr_demo.exception.PreconditionFailedException;
+import com.example.flo_usr_demo.service.UploadDecoder;
+import com.example.flo_usr_demo.service.UserExportService;
+import com.example.flo_usr_demo.service.UserImportService;
+import com.example.flo_usr_demo.service.UserRowValidator;
 import com.example.flo_usr_demo.service.UserService;
 import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * REST controller for managing users through DTOs.
+ * Bodies are JSON by default; clients may ask for CBOR instead with {@code Accept: application/cbor}
+ * and send CBOR with {@code Content-Type: application/cbor} (see {@link CborConfig}).
  */
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
+    /** Response header carrying the cursor of the next page. */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
     @Autowired
     private UserService svc;
 
+    @Autowired
+    private UserImportService importSvc;
+
+    @Autowired
+    private UserExportService exportSvc;
+
+    @Autowired
+    private UserRowValidator rowValidator;
+
+    @Autowired
+    private UploadDecoder uploads;
+
     /**
-     * Search or list all users.
+     * Search or list all users, one page at a time.
+     * The cursor of the next page is returned in the X-Next-Cursor header and as a Link rel="next";
+     * both are absent on the last page.
      *
      * @param firstName optional first name fragment
      * @param lastName  optional last name fragment
-     * @return list of matching users as DTOs
-     * @example curl -X GET "http://localhost:8080/api/users?firstName=Alice&lastName=User"
+     * @param cursor    optional cursor returned with the previous page
+     * @param limit     optional page size, capped to the configured maximum
+     * @return page of matching users as DTOs
+     * @example curl -X GET "http://localhost:8080/api/users?firstName=Alice&lastName=User&limit=50" -H "Accept: application/cbor"
      */
     @GetMapping
-    public List<UserDto> list(
+    public ResponseEntity<List<UserDto>> list(
             @RequestParam(name = "firstName", required = false) String firstName,
-            @RequestParam(name = "lastName", required = false) String lastName
+            @RequestParam(name = "lastName", required = false) String lastName,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", required = false) Integer limit
     ) {
-        return svc.search(firstName, lastName);
+        return pageResponse(svc.searchPage(firstName, lastName, cursor, limit));
     }
 
     /**
      * Retrieve a user by ID.
+     * The response carries the user's version as a strong ETag: a request whose If-None-Match
+     * names the current version gets 304 Not Modified with no body.
      *
      * @param id the user ID
      * @return user DTO
      * @throws NotFoundException if user is not found
-     * @example curl -X GET "http://localhost:8080/api/users/1"
+     * @example curl -X GET "http://localhost:8080/api/users/1" -H 'If-None-Match: "3"'
      */
     @GetMapping("/{id}")
-    public UserDto get(@PathVariable Long id) {
-        return svc.get(id)
+    public ResponseEntity<UserDto> get(@PathVariable Long id) {
+        UserDto user = svc.get(id)
                 .orElseThrow(() -> new NotFoundException("User not found with id: " + id));
+        // the 304 is decided by Spring MVC by comparing this ETag with If-None-Match
+        return ResponseEntity.ok().eTag(etag(user)).body(user);
+    }
+
+    /**
+     * Retrieve several users in one call, instead of one GET per ID.
+     * Users are returned in request order; IDs with no user are listed in missingIds.
+     *
+     * @param request the IDs to look up, at most the configured maximum
+     * @return the users found and the missing IDs
+     * @throws BadRequestException if the list is missing or too long
+     * @example
+     * curl -X POST "http://localhost:8080/api/users/batch-get"
+     * Request Body:
+     * {
+     *     "ids": [3, 1, 42]
+     * }
+     */
+    @PostMapping("/batch-get")
+    public UserBatchDto batchGet(@Valid @RequestBody UserIdsDto request) {
+        return svc.getAll(request.getIds());
     }
 
     /**
@@ -80,13 +149,17 @@ public class UserController {
 
     /**
      * Update an existing user.
+     * With an If-Match header the update only succeeds if the user is still at that version (ETag),
+     * otherwise 412 Precondition Failed is returned and nothing is written.
      *
-     * @param id  the ID of the user to update
-     * @param dto the DTO carrying updated values
-     * @return updated user DTO
-     * @throws NotFoundException if user is not found
+     * @param id      the ID of the user to update
+     * @param dto     the DTO carrying updated values
+     * @param ifMatch optional ETag the client last read
+     * @return updated user DTO, with its new ETag
+     * @throws NotFoundException           if user is not found
+     * @throws PreconditionFailedException if the ETag is not the current one
      * @example
-     * curl -X PUT "http://localhost:8080/api/users/1"
+     * curl -X PUT "http://localhost:8080/api/users/1" -H 'If-Match: "3"'
      * Request Body:
      * {
      *     "firstName": "Jane",
@@ -96,11 +169,41 @@ public class UserController {
      * }
      */
     @PutMapping("/{id}")
-    public UserDto update(
+    public ResponseEntity<UserDto> update(
+            @PathVariable Long id,
+            @Valid @RequestBody UserCreateDto dto,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        UserDto updated = svc.update(id, dto, ifMatchVersion(ifMatch));
+        return ResponseEntity.ok().eTag(etag(updated)).body(updated);
+    }
+
+    /**
+     * Partially update an existing user: only the fields present in the body are changed.
+     * As for PUT, with an If-Match header the update only succeeds if the user is still at that version (ETag),
+     * otherwise 412 Precondition Failed is returned and nothing is written.
+     *
+     * @param id      the ID of the user to update
+     * @param patch   the fields to change
+     * @param ifMatch optional ETag the client last read
+     * @return updated user DTO, with its new ETag
+     * @throws NotFoundException           if user is not found
+     * @throws PreconditionFailedException if the ETag is not the current one
+     * @example
+     * curl -X PATCH "http://localhost:8080/api/users/1" -H 'If-Match: "3"'
+     * Request Body:
+     * {
+     *     "address": "789 Boulevard"
+     * }
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<UserDto> patch(
             @PathVariable Long id,
-            @Valid @RequestBody UserCreateDto dto
+            @Valid @RequestBody UserPatchDto patch,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
-        return svc.update(id, dto);
+        UserDto updated = svc.patch(id, patch, ifMatchVersion(ifMatch));
+        return ResponseEntity.ok().eTag(etag(updated)).body(updated);
     }
 
     /**
@@ -116,19 +219,22 @@ public class UserController {
     }
 
     /**
-     * Bulk import users from a CSV file.
+     * Bulk import users from a CSV file, all or nothing.
      * Expects columns: firstName,lastName,email,address
+     * Every row is validated before anything is written: if any row breaks the constraints of the user,
+     * or repeats an email of an earlier row, nothing is imported and the errors of all rows are returned.
      *
-     * @param file the uploaded CSV file
-     * @return list of imported user DTOs
+     * @param file the uploaded CSV file, UTF-8 encoded, optionally gzip or zstd compressed
+     * @return list of imported user DTOs, or 400 with the list of row errors
+     * @throws BadRequestException if a compressed upload is corrupt or too large once decompressed
      * @example curl -X POST "http://localhost:8080/api/users/upload" -F "file=@users.csv"
      */
     @PostMapping("/upload")
-    public ResponseEntity<List<UserDto>> uploadCsv(@RequestParam("file") MultipartFile file) {
-        try (Reader reader = new InputStreamReader(file.getInputStream());
+    public ResponseEntity<?> uploadCsv(@RequestParam("file") MultipartFile file) {
+        try (Reader reader = new InputStreamReader(uploads.open(file), StandardCharsets.UTF_8);
              CSVReader csv = new CSVReader(reader)) {
 
-            List<UserCreateDto> dtos = new ArrayList<>();
+            List<String[]> rows = new ArrayList<>();
             String[] line;
 
             //avoid headers
@@ -136,17 +242,77 @@ public class UserController {
 
             // csv.readNext() returns null when there are no more lines to read
             while ((line = csv.readNext()) != null) {
-                UserCreateDto dto = new UserCreateDto(
-                        line[0], // firstName
-                        line[1], // lastName
-                        line[2], // email
-                        line[3]  // address
-                );
-                dtos.add(dto);
+                rows.add(line);
             }
-            List<UserDto> saved = svc.saveAll(dtos);
+            UserRowValidator.Result result = rowValidator.newSession().validate(1, rows);
+            if (!result.errors().isEmpty()) {
+                return ResponseEntity.badRequest().body(result.errors());
+            }
+            List<UserDto> saved = svc.saveAll(result.valid());
             return ResponseEntity.ok(saved);
-        } catch (Exception e) {
+        } catch (IOException | CsvValidationException | DataIntegrityViolationException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .build();
+        }
+    }
+
+    /**
+     * Check a CSV file without importing it, e.g. before a large upload.
+     * Rows are validated against the constraints of the user, and repeated emails are reported;
+     * the database is not read. The report is streamed as newline-delimited JSON, one line per error
+     * ({"row":3,"field":"email","message":"..."}, with a null field for errors about the whole row),
+     * and is empty if every row can be imported.
+     * Expects columns: firstName,lastName,email,address
+     *
+     * @param file the uploaded CSV file, optionally gzip or zstd compressed
+     * @return streamed report of the invalid rows
+     * @example curl -X POST "http://localhost:8080/api/users/upload/validate" -F "file=@users.csv"
+     */
+    @PostMapping("/upload/validate")
+    public ResponseEntity<StreamingResponseBody> validateCsv(@RequestParam("file") MultipartFile file) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> {
+                    try (Reader reader = new InputStreamReader(uploads.open(file), StandardCharsets.UTF_8)) {
+                        importSvc.validateCsv(reader, out);
+                    }
+                });
+    }
+
+    /**
+     * Bulk import users from a CSV file without holding the whole file in memory.
+     * Rows are inserted in chunks; duplicates and malformed rows are counted as rejected.
+     * Expects columns: firstName,lastName,email,address
+     *
+     * @param file the uploaded CSV file, optionally gzip or zstd compressed
+     * @return summary of accepted and rejected rows and elapsed time
+     * @example curl -X POST "http://localhost:8080/api/users/upload/stream" -F "file=@users.csv.gz"
+     */
+    @PostMapping("/upload/stream")
+    public ResponseEntity<ImportSummaryDto> uploadCsvStream(@RequestParam("file") MultipartFile file) {
+        try (Reader reader = new InputStreamReader(uploads.open(file), StandardCharsets.UTF_8)) {
+            return ResponseEntity.ok(importSvc.importCsv(reader));
+        } catch (IOException | CsvValidationException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .build();
+        }
+    }
+
+    /**
+     * Insert or update users from a CSV file, matching existing users by email.
+     * Same format as /upload; rows equal to the stored user are left untouched.
+     *
+     * @param file the uploaded CSV file, optionally gzip or zstd compressed
+     * @return the number of inserted, updated, unchanged and rejected rows
+     * @example curl -X POST "http://localhost:8080/api/users/upsert" -F "file=@users.csv"
+     */
+    @PostMapping("/upsert")
+    public ResponseEntity<UpsertSummaryDto> upsertCsv(@RequestParam("file") MultipartFile file) {
+        try (Reader reader = new InputStreamReader(uploads.open(file), StandardCharsets.UTF_8)) {
+            return ResponseEntity.ok(importSvc.upsertCsv(reader));
+        } catch (IOException | CsvValidationException e) {
             return ResponseEntity
                     .status(HttpStatus.BAD_REQUEST)
                     .build();
@@ -154,14 +320,119 @@ public class UserController {
     }
 
     /**
-     * Get all users with emails ending with the specified domain.
+     * Export all users as a stream, without building the list in memory.
+     * The CSV format has the same columns as the CSV import, so an export can be uploaded back.
+     * The CBOR sequence is the binary counterpart of NDJSON: each user is a CBOR item carrying its own length.
      *
-     * @param domain the email domain (e.g., "@example.com")
-     * @return list of users as DTOs
-     * @example curl -X GET "http://localhost:8080/api/users/by-domain?domain=@example.com"
+     * @param format "ndjson" (default, one JSON user per line), "cbor-seq" (application/cbor-seq) or "csv"
+     * @return streamed response body
+     * @throws BadRequestException if the format is not supported
+     * @example curl -X GET "http://localhost:8080/api/users/export?format=csv" -o users.csv
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(name = "format", defaultValue = "ndjson") String format
+    ) {
+        switch (format.toLowerCase()) {
+            case "ndjson":
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.ndjson\"")
+                        .body(exportSvc::writeNdjson);
+            case "cbor-seq":
+                return ResponseEntity.ok()
+                        .contentType(CborConfig.APPLICATION_CBOR_SEQ)
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.cbor-seq\"")
+                        .body(exportSvc::writeCborSeq);
+            case "csv":
+                return ResponseEntity.ok()
+                        .contentType(TEXT_CSV)
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.csv\"")
+                        .body(exportSvc::writeCsv);
+            default:
+                throw new BadRequestException("Unsupported export format: " + format);
+        }
+    }
+
+    /**
+     * Get users with emails in the specified domain, one page at a time.
+     *
+     * @param domain the email domain (e.g., "example.com"; "@example.com" is also accepted)
+     * @param cursor optional cursor returned with the previous page
+     * @param limit  optional page size, capped to the configured maximum
+     * @return page of users as DTOs
+     * @example curl -X GET "http://localhost:8080/api/users/search/by-domain?domain=example.com"
      */
     @GetMapping("/search/by-domain")
-    public List<UserDto> getUsersByDomain(@RequestParam String domain) {
-        return svc.getUsersByEmailDomain(domain);
+    public ResponseEntity<List<UserDto>> getUsersByDomain(
+            @RequestParam String domain,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", required = false) Integer limit
+    ) {
+        return pageResponse(svc.getUsersByEmailDomainPage(domain, cursor, limit));
+    }
+
+    /**
+     * Search users by words in their names, email or address, best matches first, one page at a time.
+     *
+     * @param q      the words to look for; "quoted phrases", OR and -excluded words are supported
+     * @param cursor optional cursor returned with the previous page
+     * @param limit  optional page size, capped to the configured maximum
+     * @return page of users as DTOs, most relevant first
+     * @example curl -X GET "http://localhost:8080/api/users/search/text?q=rossi%20roma"
+     */
+    @GetMapping("/search/text")
+    public ResponseEntity<List<UserDto>> searchText(
+            @RequestParam String q,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", required = false) Integer limit
+    ) {
+        return pageResponse(svc.searchTextPage(q, cursor, limit));
+    }
+
+    /**
+     * Strong ETag of a user: its version, which changes on every write.
+     */
+    private static String etag(UserDto user) {
+        return "\"" + user.getVersion() + "\"";
+    }
+
+    /**
+     * Version named by an If-Match header, or null when the header is absent or "*" (any version).
+     * Only a single strong ETag is supported; If-Match uses the strong comparison,
+     * so a weak, malformed or multi-valued header never matches.
+     *
+     * @throws PreconditionFailedException if the header cannot name a version of the user
+     */
+    private static Long ifMatchVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.valueOf(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // not one of our ETags: falls through to the failed precondition
+            }
+        }
+        throw new PreconditionFailedException("If-Match does not match the current version: " + ifMatch);
+    }
+
+    /**
+     * Turn a page into a response whose body is the list of items,
+     * with the next cursor in the X-Next-Cursor and Link headers.
+     */
+    private static ResponseEntity<List<UserDto>> pageResponse(CursorPage<UserDto> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.getNextCursor())
+                    .build()
+                    .toUriString();
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor())
+                    .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page.getItems());
     }
 }
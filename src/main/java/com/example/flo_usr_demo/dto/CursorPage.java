@@ -0,0 +1,30 @@
+package com.example.flo_usr_demo.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated result.
+ *
+ * @param <T> the type of the items
+ */
+public class CursorPage<T> {
+
+    private List<T> items;
+    private String  nextCursor;
+
+    public CursorPage() { }
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items      = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // — Getter & Setter —
+
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    /** @return the opaque cursor of the next page, or null if this is the last page */
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
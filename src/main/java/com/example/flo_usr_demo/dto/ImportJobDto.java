@@ -0,0 +1,67 @@
+package com.example.flo_usr_demo.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * DTO returned to clients when submitting or polling an asynchronous CSV import job.
+ */
+public class ImportJobDto {
+
+    private String       id;
+    private String       fileName;
+    private String       fileHash;
+    private String       status;
+    private long         resumedAfterRow;
+    private long         rowsRead;
+    private long         rowsAccepted;
+    private long         rowsRejected;
+    private double       rowsPerSecond;
+    private List<String> errors;
+    private Instant      createdAt;
+    private Instant      startedAt;
+    private Instant      finishedAt;
+
+    public ImportJobDto() { }
+
+    // — Getter & Setter —
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public String getFileHash() { return fileHash; }
+    public void setFileHash(String fileHash) { this.fileHash = fileHash; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public long getResumedAfterRow() { return resumedAfterRow; }
+    public void setResumedAfterRow(long resumedAfterRow) { this.resumedAfterRow = resumedAfterRow; }
+
+    public long getRowsRead() { return rowsRead; }
+    public void setRowsRead(long rowsRead) { this.rowsRead = rowsRead; }
+
+    public long getRowsAccepted() { return rowsAccepted; }
+    public void setRowsAccepted(long rowsAccepted) { this.rowsAccepted = rowsAccepted; }
+
+    public long getRowsRejected() { return rowsRejected; }
+    public void setRowsRejected(long rowsRejected) { this.rowsRejected = rowsRejected; }
+
+    public double getRowsPerSecond() { return rowsPerSecond; }
+    public void setRowsPerSecond(double rowsPerSecond) { this.rowsPerSecond = rowsPerSecond; }
+
+    public List<String> getErrors() { return errors; }
+    public void setErrors(List<String> errors) { this.errors = errors; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+
+    public Instant getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+}
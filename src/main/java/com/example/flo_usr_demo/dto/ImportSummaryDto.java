@@ -0,0 +1,39 @@
+package com.example.flo_usr_demo.dto;
+
+import java.util.List;
+
+/**
+ * DTO returned to clients after a streaming CSV import.
+ * The errors are the first validation errors of the rejected rows; rows skipped because their email
+ * already exists are counted as rejected but not listed.
+ */
+public class ImportSummaryDto {
+
+    private long rowsAccepted;
+    private long rowsRejected;
+    private List<RowErrorDto> errors;
+    private long elapsedMillis;
+
+    public ImportSummaryDto() { }
+
+    public ImportSummaryDto(long rowsAccepted, long rowsRejected, List<RowErrorDto> errors, long elapsedMillis) {
+        this.rowsAccepted  = rowsAccepted;
+        this.rowsRejected  = rowsRejected;
+        this.errors        = errors;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    // — Getter & Setter —
+
+    public long getRowsAccepted() { return rowsAccepted; }
+    public void setRowsAccepted(long rowsAccepted) { this.rowsAccepted = rowsAccepted; }
+
+    public long getRowsRejected() { return rowsRejected; }
+    public void setRowsRejected(long rowsRejected) { this.rowsRejected = rowsRejected; }
+
+    public List<RowErrorDto> getErrors() { return errors; }
+    public void setErrors(List<RowErrorDto> errors) { this.errors = errors; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+}
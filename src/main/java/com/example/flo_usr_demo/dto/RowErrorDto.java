@@ -0,0 +1,31 @@
+package com.example.flo_usr_demo.dto;
+
+/**
+ * DTO describing why a row of an imported CSV file was rejected.
+ * The field is null when the problem concerns the whole row (e.g. a missing column).
+ */
+public class RowErrorDto {
+
+    private long   row;
+    private String field;
+    private String message;
+
+    public RowErrorDto() { }
+
+    public RowErrorDto(long row, String field, String message) {
+        this.row     = row;
+        this.field   = field;
+        this.message = message;
+    }
+
+    // — Getter & Setter —
+
+    public long getRow() { return row; }
+    public void setRow(long row) { this.row = row; }
+
+    public String getField() { return field; }
+    public void setField(String field) { this.field = field; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
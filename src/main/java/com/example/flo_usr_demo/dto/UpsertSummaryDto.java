@@ -0,0 +1,49 @@
+package com.example.flo_usr_demo.dto;
+
+import java.util.List;
+
+/**
+ * DTO returned to clients after a bulk upsert.
+ * The errors are the first validation errors of the rejected rows.
+ */
+public class UpsertSummaryDto {
+
+    private long rowsInserted;
+    private long rowsUpdated;
+    private long rowsUnchanged;
+    private long rowsRejected;
+    private List<RowErrorDto> errors;
+    private long elapsedMillis;
+
+    public UpsertSummaryDto() { }
+
+    public UpsertSummaryDto(long rowsInserted, long rowsUpdated, long rowsUnchanged,
+                            long rowsRejected, List<RowErrorDto> errors, long elapsedMillis) {
+        this.rowsInserted  = rowsInserted;
+        this.rowsUpdated   = rowsUpdated;
+        this.rowsUnchanged = rowsUnchanged;
+        this.rowsRejected  = rowsRejected;
+        this.errors        = errors;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    // — Getter & Setter —
+
+    public long getRowsInserted() { return rowsInserted; }
+    public void setRowsInserted(long rowsInserted) { this.rowsInserted = rowsInserted; }
+
+    public long getRowsUpdated() { return rowsUpdated; }
+    public void setRowsUpdated(long rowsUpdated) { this.rowsUpdated = rowsUpdated; }
+
+    public long getRowsUnchanged() { return rowsUnchanged; }
+    public void setRowsUnchanged(long rowsUnchanged) { this.rowsUnchanged = rowsUnchanged; }
+
+    public long getRowsRejected() { return rowsRejected; }
+    public void setRowsRejected(long rowsRejected) { this.rowsRejected = rowsRejected; }
+
+    public List<RowErrorDto> getErrors() { return errors; }
+    public void setErrors(List<RowErrorDto> errors) { this.errors = errors; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+}
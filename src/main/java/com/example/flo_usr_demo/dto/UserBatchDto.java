@@ -0,0 +1,28 @@
+package com.example.flo_usr_demo.dto;
+
+import java.util.List;
+
+/**
+ * DTO returned by a batch lookup: the users found, in the order they were requested,
+ * and the requested IDs for which no user exists.
+ */
+public class UserBatchDto {
+
+    private List<UserDto> users;
+    private List<Long>    missingIds;
+
+    public UserBatchDto() { }
+
+    public UserBatchDto(List<UserDto> users, List<Long> missingIds) {
+        this.users      = users;
+        this.missingIds = missingIds;
+    }
+
+    // — Getter & Setter —
+
+    public List<UserDto> getUsers() { return users; }
+    public void setUsers(List<UserDto> users) { this.users = users; }
+
+    public List<Long> getMissingIds() { return missingIds; }
+    public void setMissingIds(List<Long> missingIds) { this.missingIds = missingIds; }
+}
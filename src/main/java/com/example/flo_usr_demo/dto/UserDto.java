@@ -1,68 +1,62 @@
 package com.example.flo_usr_demo.dto;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.Objects;
 
 /**
  * DTO returned to clients when fetching a User.
+ * Instances are immutable, so the same instance can be shared through the user cache.
  */
-public class UserDto {
-
-    private Long   id;
-    private String firstName;
-    private String lastName;
-    private String email;
-    private String address;
-
-    public UserDto() { }
-
-    public UserDto(Long id, String firstName, String lastName, String email, String address) {
+public final class UserDto {
+
+    private final Long   id;
+    private final String firstName;
+    private final String lastName;
+    private final String email;
+    private final String address;
+    private final Long   version;
+
+    @JsonCreator
+    public UserDto(@JsonProperty("id") Long id,
+                   @JsonProperty("firstName") String firstName,
+                   @JsonProperty("lastName") String lastName,
+                   @JsonProperty("email") String email,
+                   @JsonProperty("address") String address,
+                   @JsonProperty("version") Long version) {
         this.id        = id;
         this.firstName = firstName;
         this.lastName  = lastName;
         this.email     = email;
         this.address   = address;
+        this.version   = version;
     }
 
-    // — Getter & Setter —
+    // — Getter —
 
     public Long getId() {
         return id;
     }
 
-    public void setId(Long id) {
-        this.id = id;
-    }
-
     public String getFirstName() {
         return firstName;
     }
 
-    public void setFirstName(String firstName) {
-        this.firstName = firstName;
-    }
-
     public String getLastName() {
         return lastName;
     }
 
-    public void setLastName(String lastName) {
-        this.lastName = lastName;
-    }
-
     public String getEmail() {
         return email;
     }
 
-    public void setEmail(String email) {
-        this.email = email;
-    }
-
     public String getAddress() {
         return address;
     }
 
-    public void setAddress(String address) {
-        this.address = address;
+    public Long getVersion() {
+        return version;
     }
 
     @Override
@@ -74,13 +68,13 @@ public class UserDto {
                 Objects.equals(firstName, that.firstName) &&
                 Objects.equals(lastName, that.lastName) &&
                 Objects.equals(email, that.email) &&
-                Objects.equals(address, that.address);
+                Objects.equals(address, that.address) &&
+                Objects.equals(version, that.version);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, firstName, lastName, email, address);
+        return Objects.hash(id, firstName, lastName, email, address, version);
     }
 
 }
-
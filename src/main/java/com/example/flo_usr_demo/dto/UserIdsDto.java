@@ -0,0 +1,25 @@
+package com.example.flo_usr_demo.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * DTO carrying the IDs requested by a batch lookup.
+ */
+public class UserIdsDto {
+
+    @NotNull
+    private List<Long> ids;
+
+    public UserIdsDto() { }
+
+    public UserIdsDto(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    // — Getter & Setter —
+
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+}
@@ -0,0 +1,60 @@
+package com.example.flo_usr_demo.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+/**
+ * DTO used to partially update a User: only the non-null fields are changed.
+ * A field cannot be cleared through a patch.
+ */
+public class UserPatchDto {
+
+    private static final String NOT_BLANK = ".*\\S.*";
+
+    @Pattern(regexp = NOT_BLANK, message = "First name must not be blank")
+    @Size(min = 2, max = 50, message = "First name must be between 2 and 50 characters")
+    private String firstName;
+
+    @Pattern(regexp = NOT_BLANK, message = "Last name must not be blank")
+    @Size(min = 2, max = 50, message = "Last name must be between 2 and 50 characters")
+    private String lastName;
+
+    @Email(message = "Email should be valid")
+    @Pattern(regexp = NOT_BLANK, message = "Email must not be blank")
+    @Size(max = 100, message = "Email must not exceed 100 characters")
+    private String email;
+
+    @Size(max = 200, message = "Address must not exceed 200 characters")
+    private String address;
+
+    public UserPatchDto() {}
+
+    public UserPatchDto(String firstName, String lastName, String email, String address) {
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.address = address;
+    }
+
+    /**
+     * @return true if no field is set, i.e. the patch changes nothing
+     */
+    public boolean isEmpty() {
+        return firstName == null && lastName == null && email == null && address == null;
+    }
+
+    // — Getter & Setter —
+
+    public String getFirstName() { return firstName; }
+    public void setFirstName(String firstName) { this.firstName = firstName; }
+
+    public String getLastName() { return lastName; }
+    public void setLastName(String lastName) { this.lastName = lastName; }
+
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+}
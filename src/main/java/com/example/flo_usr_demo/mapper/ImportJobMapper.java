@@ -0,0 +1,37 @@
+package com.example.flo_usr_demo.mapper;
+
+import com.example.flo_usr_demo.dto.ImportJobDto;
+import com.example.flo_usr_demo.service.ImportJob;
+
+/**
+ * Mapper utility for converting {@link ImportJob} progress records into {@link ImportJobDto}s.
+ */
+public class ImportJobMapper {
+
+    /**
+     * Takes a snapshot of an {@link ImportJob}.
+     *
+     * @param job the job to convert
+     * @return an ImportJobDto with the current progress of the job
+     */
+    public static ImportJobDto toDto(ImportJob job) {
+        if (job == null) {
+            return null;
+        }
+        ImportJobDto dto = new ImportJobDto();
+        dto.setId(job.getId());
+        dto.setFileName(job.getFileName());
+        dto.setFileHash(job.getFileHash());
+        dto.setStatus(job.getStatus().name());
+        dto.setResumedAfterRow(job.getResumedAfterRow());
+        dto.setRowsRead(job.getRowsRead());
+        dto.setRowsAccepted(job.getRowsAccepted());
+        dto.setRowsRejected(job.getRowsRejected());
+        dto.setRowsPerSecond(job.getRowsPerSecond());
+        dto.setErrors(job.getErrors());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        return dto;
+    }
+}
@@ -42,7 +42,8 @@ public class UserMapper {
                 u.getFirstName(),
                 u.getLastName(),
                 u.getEmail(),
-                u.getAddress()
+                u.getAddress(),
+                u.getVersion()
         );
     }
 }
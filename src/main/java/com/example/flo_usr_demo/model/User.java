@@ -6,6 +6,9 @@ import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Column;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.DynamicUpdate;
 
 /**
  * Using Javadoc to generate automatic documentation.
@@ -13,10 +16,17 @@ import jakarta.persistence.Column;
  */
 @Entity
 @Table(name = "users")
+@DynamicUpdate
 public class User {
 
+    /**
+     * IDs reserved by each call to users_id_seq (migration V4); must match the sequence increment.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id")
+    @SequenceGenerator(name = "users_id", sequenceName = "users_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     @Column(name = "id")
     private Long id;
 
@@ -32,6 +42,13 @@ public class User {
     @Column(name = "address")
     private String address;
 
+    /**
+     * Incremented on every update; an update carrying a stale version fails instead of overwriting.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     /**
      * Default no-arg constructor
      */
@@ -109,6 +126,16 @@ public class User {
         this.address = address;
     }
 
+    /** @return the user’s version, null until first saved */
+    public Long getVersion() {
+        return version;
+    }
+
+    /** @param version the user’s version to set */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     // ----------------------------------------------------------------
     // equals, hashCode, toString
     // ----------------------------------------------------------------
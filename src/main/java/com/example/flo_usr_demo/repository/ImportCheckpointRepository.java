@@ -0,0 +1,76 @@
+package com.example.flo_usr_demo.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * JDBC access to the import_checkpoints control table, which records how far the import of each file got.
+ * Checkpoints are meant to be written in the same transaction as the rows they account for.
+ */
+@Repository
+public class ImportCheckpointRepository {
+
+    private static final String SELECT_SQL =
+            "SELECT byte_offset, rows_done, completed, updated_at FROM import_checkpoints WHERE file_hash = ?";
+
+    private static final String SAVE_SQL =
+            "INSERT INTO import_checkpoints (file_hash, file_name, byte_offset, rows_done, completed, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, now()) " +
+            "ON CONFLICT (file_hash) DO UPDATE SET file_name = EXCLUDED.file_name, " +
+            "byte_offset = EXCLUDED.byte_offset, rows_done = EXCLUDED.rows_done, " +
+            "completed = EXCLUDED.completed, updated_at = EXCLUDED.updated_at";
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    /**
+     * How far the import of a file got.
+     *
+     * @param byteOffset where the first row not imported yet starts in the file
+     * @param rowsDone   the number of data rows before that offset
+     * @param completed  whether the whole file was imported
+     * @param updatedAt  when the checkpoint was last written
+     */
+    public record Checkpoint(long byteOffset, long rowsDone, boolean completed, Instant updatedAt) {
+    }
+
+    /**
+     * Look up the checkpoint of a file.
+     *
+     * @param fileHash the SHA-256 of the file, hex
+     * @return the checkpoint, or empty if the file was never imported
+     */
+    public Optional<Checkpoint> find(String fileHash) {
+        return jdbc.query(SELECT_SQL, (rs, rowNum) -> new Checkpoint(
+                rs.getLong("byte_offset"),
+                rs.getLong("rows_done"),
+                rs.getBoolean("completed"),
+                rs.getTimestamp("updated_at").toInstant()), fileHash).stream().findFirst();
+    }
+
+    /**
+     * Record how far the import of a file got, replacing its previous checkpoint.
+     *
+     * @param fileHash   the SHA-256 of the file, hex
+     * @param fileName   the name of the uploaded file, for operators
+     * @param byteOffset where the first row not imported yet starts in the file
+     * @param rowsDone   the number of data rows before that offset
+     * @param completed  whether the whole file was imported
+     */
+    public void save(String fileHash, String fileName, long byteOffset, long rowsDone, boolean completed) {
+        jdbc.update(SAVE_SQL, fileHash, fileName, byteOffset, rowsDone, completed);
+    }
+
+    /**
+     * Forget the checkpoint of a file, so that its next import starts from the first row.
+     *
+     * @param fileHash the SHA-256 of the file, hex
+     */
+    public void delete(String fileHash) {
+        jdbc.update("DELETE FROM import_checkpoints WHERE file_hash = ?", fileHash);
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.flo_usr_demo.repository;
+
+import com.example.flo_usr_demo.dto.UserCreateDto;
+import com.example.flo_usr_demo.dto.UserDto;
+import com.example.flo_usr_demo.dto.UserPatchDto;
+import com.example.flo_usr_demo.model.User;
+import com.example.flo_usr_demo.service.PageCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Plain JDBC access to the users table for bulk operations that JPA cannot express in a single statement.
+ * <p>
+ * The lookups by ID feed the user cache, so they run outside read-only transactions and always read the
+ * primary: a row loaded from a lagging replica right after a change was evicted would put the old version
+ * back in the cache, where nothing would evict it again.
+ */
+@Repository
+public class UserJdbcRepository {
+
+    /**
+     * The rows of a chunk, passed as four arrays, each with an ID taken from a block of the pooled sequence
+     * (migration V4): one nextval() per {@value User#ID_ALLOCATION_SIZE} rows, like Hibernate, instead of the
+     * column DEFAULT that would spend a whole block on every row. Blocks are drawn in a materialized CTE
+     * so that nextval() runs exactly once per block.
+     */
+    private static final String ROWS_WITH_IDS =
+            "WITH rows AS (" +
+            "  SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[]) " +
+            "  WITH ORDINALITY AS r(first_name, last_name, email, address, n)" +
+            "), blocks AS MATERIALIZED (" +
+            "  SELECT g AS block, nextval('users_id_seq') AS hi " +
+            "  FROM generate_series(0, (SELECT (count(*) - 1) / " + User.ID_ALLOCATION_SIZE + " FROM rows)) g" +
+            ") " +
+            "INSERT INTO users (id, first_name, last_name, email, address) " +
+            "SELECT b.hi - " + (User.ID_ALLOCATION_SIZE - 1) + " + (r.n - 1) % " + User.ID_ALLOCATION_SIZE + ", " +
+            "r.first_name, r.last_name, r.email, r.address " +
+            "FROM rows r JOIN blocks b ON b.block = (r.n - 1) / " + User.ID_ALLOCATION_SIZE + " " +
+            "ORDER BY r.n ";
+
+    private static final String INSERT_SQL = ROWS_WITH_IDS + "ON CONFLICT (email) DO NOTHING";
+
+    /**
+     * Existing users are updated only when a column actually changes; unchanged rows are not returned.
+     * xmax is 0 only for a row version created by an insert.
+     */
+    private static final String UPSERT_SQL = ROWS_WITH_IDS +
+            "ON CONFLICT (email) DO UPDATE SET " +
+            "first_name = EXCLUDED.first_name, last_name = EXCLUDED.last_name, address = EXCLUDED.address, " +
+            "version = users.version + 1 " +
+            "WHERE (users.first_name, users.last_name, users.address) " +
+            "IS DISTINCT FROM (EXCLUDED.first_name, EXCLUDED.last_name, EXCLUDED.address) " +
+            "RETURNING id, (xmax = 0) AS inserted";
+
+    private static final String SELECT_BY_ID_SQL =
+            "SELECT id, first_name, last_name, email, address, version FROM users WHERE id = ?";
+
+    /** One statement, and one server-side plan, whatever the number of IDs. */
+    private static final String SELECT_BY_IDS_SQL =
+            "SELECT id, first_name, last_name, email, address, version FROM users WHERE id = ANY(?)";
+
+    /**
+     * Users matching a free-text query, best first, after a (rank, id) position.
+     * The GIN index on search_vector (migration V6) finds the matches, but the rank is computed for all of
+     * them, on every page: the (rank, id) filter and the LIMIT apply only once every match has been ranked
+     * and sorted, so a page costs O(matches), and a broad query re-ranks its whole result set each time.
+     */
+    private static final String TEXT_SEARCH_SQL =
+            "SELECT * FROM (" +
+            "  SELECT u.id, u.first_name, u.last_name, u.email, u.address, u.version, " +
+            "  ts_rank(u.search_vector, q) AS rank " +
+            "  FROM users u, websearch_to_tsquery('simple', ?) q " +
+            "  WHERE u.search_vector @@ q" +
+            ") r " +
+            "WHERE rank < ? OR (rank = ? AND id > ?) " +
+            "ORDER BY rank DESC, id LIMIT ?";
+
+    private static final String SELECT_ALL_SQL =
+            "SELECT id, first_name, last_name, email, address, version FROM users ORDER BY id";
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Value("${app.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    /**
+     * Insert a chunk of users with a single statement.
+     * Rows whose email already exists are skipped by the database instead of failing the statement.
+     *
+     * @param rows the users to insert
+     * @return the number of rows actually inserted
+     */
+    public int insertBatch(List<UserCreateDto> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        return jdbc.update(con -> prepareRows(con, INSERT_SQL, rows));
+    }
+
+    /**
+     * Outcome of {@link #upsertBatch}: rows neither inserted nor updated were already up to date.
+     *
+     * @param inserted   the number of new users
+     * @param updatedIds the IDs of the existing users whose values changed
+     */
+    public record UpsertResult(int inserted, List<Long> updatedIds) {
+    }
+
+    /**
+     * Insert a chunk of users, or update the existing users with the same email, in a single statement.
+     * Emails must be distinct within the chunk: PostgreSQL cannot update the same row twice in one statement.
+     *
+     * @param rows the users to insert or update
+     * @return the number of inserted users and the IDs of the updated ones
+     */
+    public UpsertResult upsertBatch(List<UserCreateDto> rows) {
+        if (rows.isEmpty()) {
+            return new UpsertResult(0, List.of());
+        }
+        List<Long> updatedIds = new ArrayList<>();
+        int inserted = jdbc.query(con -> prepareRows(con, UPSERT_SQL, rows), rs -> {
+            int count = 0;
+            while (rs.next()) {
+                if (rs.getBoolean("inserted")) {
+                    count++;
+                } else {
+                    updatedIds.add(rs.getLong("id"));
+                }
+            }
+            return count;
+        });
+        return new UpsertResult(inserted, updatedIds);
+    }
+
+    /**
+     * Prepare one of the statements built on {@link #ROWS_WITH_IDS}, binding the rows column by column.
+     */
+    private static PreparedStatement prepareRows(Connection con, String sql, List<UserCreateDto> rows)
+            throws SQLException {
+        PreparedStatement ps = con.prepareStatement(sql);
+        ps.setArray(1, con.createArrayOf("varchar", column(rows, UserCreateDto::getFirstName)));
+        ps.setArray(2, con.createArrayOf("varchar", column(rows, UserCreateDto::getLastName)));
+        ps.setArray(3, con.createArrayOf("varchar", column(rows, UserCreateDto::getEmail)));
+        ps.setArray(4, con.createArrayOf("varchar", column(rows, UserCreateDto::getAddress)));
+        return ps;
+    }
+
+    private static Object[] column(List<UserCreateDto> rows, Function<UserCreateDto, String> getter) {
+        Object[] values = new Object[rows.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getter.apply(rows.get(i));
+        }
+        return values;
+    }
+
+    /**
+     * Apply a partial update in a single round trip, without reading the row first.
+     * Only the columns set in the patch appear in the UPDATE, so unchanged columns are not rewritten
+     * and an untouched indexed column does not prevent a HOT update. The version is always incremented.
+     *
+     * @param id              the ID of the user to update
+     * @param patch           the fields to change; must not be empty
+     * @param expectedVersion the version the user must still be at, or null to update it at any version
+     * @return the updated user, or an empty Optional if no user has the given ID, or not at the expected version
+     */
+    public Optional<UserDto> patch(Long id, UserPatchDto patch, Long expectedVersion) {
+        List<String> columns = new ArrayList<>(4);
+        List<Object> values = new ArrayList<>(5);
+        addIfSet(columns, values, "first_name", patch.getFirstName());
+        addIfSet(columns, values, "last_name", patch.getLastName());
+        addIfSet(columns, values, "email", patch.getEmail());
+        addIfSet(columns, values, "address", patch.getAddress());
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("Empty patch");
+        }
+        values.add(id);
+        String versionCheck = "";
+        if (expectedVersion != null) {
+            versionCheck = " AND version = ?";
+            values.add(expectedVersion);
+        }
+
+        String sql = "UPDATE users SET " + String.join(", ", columns) + ", version = version + 1" +
+                " WHERE id = ?" + versionCheck + " RETURNING id, first_name, last_name, email, address, version";
+        List<UserDto> updated = jdbc.query(sql, (rs, rowNum) -> toDto(rs), values.toArray());
+        return updated.stream().findFirst();
+    }
+
+    /**
+     * Read the current version of a user. Runs outside any read-only transaction, so on the primary:
+     * it explains why a conditional write just made there did not match.
+     *
+     * @param id the ID of the user
+     * @return the version, or an empty Optional if no user has the given ID
+     */
+    public Optional<Long> findVersion(Long id) {
+        return jdbc.query("SELECT version FROM users WHERE id = ?", (rs, rowNum) -> rs.getLong(1), id)
+                .stream()
+                .findFirst();
+    }
+
+    private static void addIfSet(List<String> columns, List<Object> values, String column, String value) {
+        if (value != null) {
+            columns.add(column + " = ?");
+            values.add(value);
+        }
+    }
+
+    /**
+     * Load a user from the primary.
+     *
+     * @param id the ID of the user
+     * @return the user, or an empty Optional if no user has the given ID
+     */
+    public Optional<UserDto> findById(Long id) {
+        return jdbc.query(SELECT_BY_ID_SQL, (rs, rowNum) -> toDto(rs), id).stream().findFirst();
+    }
+
+    /**
+     * Load several users from the primary with a single query.
+     *
+     * @param ids the IDs to load
+     * @return the existing users among them, in no particular order
+     */
+    public List<UserDto> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_BY_IDS_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        }, (rs, rowNum) -> toDto(rs));
+    }
+
+    /**
+     * A user matching a free-text search, with its relevance.
+     *
+     * @param user the matching user
+     * @param rank the relevance computed by ts_rank, higher is better
+     */
+    public record RankedUser(UserDto user, float rank) {
+    }
+
+    /**
+     * Search users by words in their names, email or address, best matches first.
+     * The query uses the web search syntax: words are ANDed, "quoted phrases", OR and -excluded words are supported.
+     * Every page ranks all the users matching the query, not just the ones it returns.
+     * Runs in a read-only transaction, like the reads of {@link UserRepository}.
+     *
+     * @param query the free-text query
+     * @param after the position after which to continue, {@link PageCursor.Ranked#FIRST} for the first page
+     * @param limit the maximum number of users to return
+     * @return matching users ordered by descending rank, then by ID
+     */
+    @Transactional(readOnly = true)
+    public List<RankedUser> searchText(String query, PageCursor.Ranked after, int limit) {
+        return jdbc.query(TEXT_SEARCH_SQL, (rs, rowNum) -> new RankedUser(toDto(rs), rs.getFloat("rank")),
+                query, after.rank(), after.rank(), after.lastSeenId(), limit);
+    }
+
+    /**
+     * Stream every user through a forward-only, read-only cursor.
+     * Must run inside a transaction: PostgreSQL only honours the fetch size when auto-commit is off,
+     * otherwise the driver materialises the whole result set.
+     *
+     * @param action callback invoked for each user, in ID order
+     */
+    public void forEach(Consumer<UserDto> action) {
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_ALL_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(exportFetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> action.accept(toDto(rs)));
+    }
+
+    private static UserDto toDto(ResultSet rs) throws SQLException {
+        return new UserDto(
+                rs.getLong("id"),
+                rs.getString("first_name"),
+                rs.getString("last_name"),
+                rs.getString("email"),
+                rs.getString("address"),
+                rs.getLong("version")
+        );
+    }
+}
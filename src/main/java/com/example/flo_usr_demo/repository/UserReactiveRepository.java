@@ -0,0 +1,137 @@
+package com.example.flo_usr_demo.repository;
+
+import com.example.flo_usr_demo.dto.UserDto;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking, read-only access to the users table through R2DBC.
+ * <p>
+ * Results are streamed with backpressure: multi-row queries are executed with a fetch size,
+ * so PostgreSQL sends the next batch of rows only once the subscriber has asked for them.
+ * Name searches use the same literal ILIKE patterns, and thus the same trigram indexes, as {@link UserRepository}.
+ */
+@Repository
+public class UserReactiveRepository {
+
+    private static final String SELECT_SQL = "SELECT id, first_name, last_name, email, address, version FROM users";
+
+    @Autowired
+    private DatabaseClient db;
+
+    @Value("${app.export.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * Find a user by ID.
+     *
+     * @param id the user ID
+     * @return the user, or an empty Mono if it does not exist
+     */
+    public Mono<UserDto> findById(Long id) {
+        return db.sql(SELECT_SQL + " WHERE id = :id")
+                .bind("id", id)
+                .map(UserReactiveRepository::toDto)
+                .one();
+    }
+
+    /**
+     * Stream the users matching the given name fragments (case-insensitive) in a range of IDs, in ID order.
+     * The range is not capped by a row limit, so that none of its users is left out: it comes from
+     * {@link #findPageRange}, which sizes it to one page.
+     *
+     * @param firstName the fragment of the first name to search for, or null
+     * @param lastName  the fragment of the last name to search for, or null
+     * @param afterId   only users with a greater ID are returned (0 for all)
+     * @param throughId only users with this ID or a lower one are returned
+     * @return the matching users
+     */
+    public Flux<UserDto> search(String firstName, String lastName, long afterId, long throughId) {
+        return bindSearch(SELECT_SQL, firstName, lastName, afterId, " AND id <= :throughId ORDER BY id")
+                .bind("throughId", throughId)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(UserReactiveRepository::toDto)
+                .all();
+    }
+
+    /**
+     * Range of IDs of a search page, and whether another page follows it.
+     *
+     * @param lastId the ID of the last matching user read: the last user of the page, or the first user
+     *               of the next page if {@code more}
+     * @param more   whether more users than the page size match after the start of the page
+     */
+    public record PageRange(long lastId, boolean more) {
+    }
+
+    /**
+     * Find the range of IDs covered by a search page, reading one user past the page to tell whether
+     * there is another. The same filter as {@link #search} is applied; PostgreSQL only reads the IDs.
+     *
+     * @param firstName the fragment of the first name to search for, or null
+     * @param lastName  the fragment of the last name to search for, or null
+     * @param afterId   the ID the page starts after (0 for the first page)
+     * @param limit     the page size
+     * @return the range of the page, or an empty Mono if no user matches after afterId
+     */
+    public Mono<PageRange> findPageRange(String firstName, String lastName, long afterId, int limit) {
+        return bindSearch("SELECT coalesce(max(id), 0) AS last_id, count(*) AS matches FROM (SELECT id FROM users",
+                firstName, lastName, afterId, " ORDER BY id LIMIT :limit) page")
+                .bind("limit", limit + 1)
+                .map(row -> new PageRange(row.get("last_id", Long.class), row.get("matches", Long.class) > limit))
+                .one()
+                .filter(range -> range.lastId() > afterId);
+    }
+
+    /**
+     * Build a name search on the users table, with its parameters bound except those of {@code tail}.
+     */
+    private DatabaseClient.GenericExecuteSpec bindSearch(String select, String firstName, String lastName,
+                                                         long afterId, String tail) {
+        StringBuilder sql = new StringBuilder(select).append(" WHERE id > :afterId");
+        if (firstName != null) {
+            sql.append(" AND first_name ILIKE ").append(UserRepository.FIRST_NAME_CONTAINS);
+        }
+        if (lastName != null) {
+            sql.append(" AND last_name ILIKE ").append(UserRepository.LAST_NAME_CONTAINS);
+        }
+        sql.append(tail);
+
+        DatabaseClient.GenericExecuteSpec spec = db.sql(sql.toString()).bind("afterId", afterId);
+        if (firstName != null) {
+            spec = spec.bind("firstName", firstName);
+        }
+        if (lastName != null) {
+            spec = spec.bind("lastName", lastName);
+        }
+        return spec;
+    }
+
+    /**
+     * Stream every user, in ID order.
+     *
+     * @return all users
+     */
+    public Flux<UserDto> findAll() {
+        return db.sql(SELECT_SQL + " ORDER BY id")
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(UserReactiveRepository::toDto)
+                .all();
+    }
+
+    private static UserDto toDto(Readable row) {
+        return new UserDto(
+                row.get("id", Long.class),
+                row.get("first_name", String.class),
+                row.get("last_name", String.class),
+                row.get("email", String.class),
+                row.get("address", String.class),
+                row.get("version", Long.class)
+        );
+    }
+}
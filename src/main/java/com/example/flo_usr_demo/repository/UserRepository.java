@@ -1,24 +1,50 @@
 package com.example.flo_usr_demo.repository;
 
 import com.example.flo_usr_demo.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 /**
  * Repository interface for {@link User} entities.
+ * <p>
+ * Name searches are native {@code ILIKE '%fragment%'} queries on the bare columns, so PostgreSQL can
+ * answer them from the pg_trgm GIN indexes created by migration V2. LIKE wildcards in the fragment
+ * are escaped, so a fragment always matches literally.
+ * <p>
+ * Query methods run in read-only transactions, like the inherited find methods, so that they are routed
+ * to a read replica when one is configured; the inherited save and delete methods keep their read-write ones.
  */
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    /**
+     * Columns mapped by {@link User}. Native searches list them instead of {@code SELECT *}, which would also
+     * ship the generated search_vector and email_domain columns that the entity never reads.
+     */
+    String USER_COLUMNS = "id, first_name, last_name, email, address, version";
+
+    /** ILIKE pattern matching any value that contains :firstName literally. */
+    String FIRST_NAME_CONTAINS =
+            "('%' || replace(replace(replace(:firstName, '\\', '\\\\'), '%', '\\%'), '_', '\\_') || '%')";
+
+    /** ILIKE pattern matching any value that contains :lastName literally. */
+    String LAST_NAME_CONTAINS =
+            "('%' || replace(replace(replace(:lastName, '\\', '\\\\'), '%', '\\%'), '_', '\\_') || '%')";
+
     /**
      * Find users by first name containing the given fragment (case-insensitive).
      *
      * @param firstName the fragment of the first name to search for
      * @return list of users matching the criteria
      */
-    List<User> findByFirstNameContainingIgnoreCase(String firstName);
+    @Query(value = "SELECT " + USER_COLUMNS + " FROM users WHERE first_name ILIKE " + FIRST_NAME_CONTAINS,
+            nativeQuery = true)
+    List<User> findByFirstNameContainingIgnoreCase(@Param("firstName") String firstName);
 
     /**
      * Find users by last name containing the given fragment (case-insensitive).
@@ -26,7 +52,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @param lastName the fragment of the last name to search for
      * @return list of users matching the criteria
      */
-    List<User> findByLastNameContainingIgnoreCase(String lastName);
+    @Query(value = "SELECT " + USER_COLUMNS + " FROM users WHERE last_name ILIKE " + LAST_NAME_CONTAINS,
+            nativeQuery = true)
+    List<User> findByLastNameContainingIgnoreCase(@Param("lastName") String lastName);
 
     /**
      * Find users by first name and last name fragments (both case-insensitive).
@@ -35,16 +63,92 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @param lastName  the fragment of the last name to search for
      * @return list of users matching the criteria
      */
-    List<User> findByFirstNameContainingIgnoreCaseAndLastNameContainingIgnoreCase(String firstName, String lastName);
+    @Query(value = "SELECT " + USER_COLUMNS + " FROM users WHERE first_name ILIKE " + FIRST_NAME_CONTAINS +
+            " AND last_name ILIKE " + LAST_NAME_CONTAINS, nativeQuery = true)
+    List<User> findByFirstNameContainingIgnoreCaseAndLastNameContainingIgnoreCase(@Param("firstName") String firstName,
+                                                                                 @Param("lastName") String lastName);
+
+    /**
+     * Find all users whose email belongs to the specified domain.
+     * Uses the generated email_domain column and its index (migration V3).
+     *
+     * @param domain the lower-cased email domain to search for, e.g. "gmail.com"
+     * @return list of users whose email has the given domain
+     */
+    @Query(value = "SELECT " + USER_COLUMNS + " FROM users WHERE email_domain = :domain", nativeQuery = true)
+    List<User> findByEmailDomain(@Param("domain") String domain);
+
+    // ----------------------------------------------------------------
+    // Keyset pagination: "id > lastSeenId ORDER BY id LIMIT n"
+    // ----------------------------------------------------------------
+
+    /**
+     * Find the page of users following the given ID.
+     *
+     * @param afterId the last ID seen by the client (0 for the first page)
+     * @param limit   the maximum number of users to return
+     * @return users with an ID greater than afterId, ordered by ID
+     */
+    List<User> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    /**
+     * Find the page of users following the given ID whose first name contains the given fragment (case-insensitive).
+     *
+     * @param firstName the fragment of the first name to search for
+     * @param afterId   the last ID seen by the client (0 for the first page)
+     * @param limit     the maximum number of users to return
+     * @return matching users ordered by ID
+     */
+    @Query(value = "SELECT " + USER_COLUMNS + " FROM users WHERE first_name ILIKE " + FIRST_NAME_CONTAINS +
+            " AND id > :afterId ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<User> searchByFirstName(@Param("firstName") String firstName,
+                                 @Param("afterId") Long afterId,
+                                 @Param("limit") int limit);
+
+    /**
+     * Find the page of users following the given ID whose last name contains the given fragment (case-insensitive).
+     *
+     * @param lastName the fragment of the last name to search for
+     * @param afterId  the last ID seen by the client (0 for the first page)
+     * @param limit    the maximum number of users to return
+     * @return matching users ordered by ID
+     */
+    @Query(value = "SELECT " + USER_COLUMNS + " FROM users WHERE last_name ILIKE " + LAST_NAME_CONTAINS +
+            " AND id > :afterId ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<User> searchByLastName(@Param("lastName") String lastName,
+                                @Param("afterId") Long afterId,
+                                @Param("limit") int limit);
+
+    /**
+     * Find the page of users following the given ID matching both name fragments (case-insensitive).
+     *
+     * @param firstName the fragment of the first name to search for
+     * @param lastName  the fragment of the last name to search for
+     * @param afterId   the last ID seen by the client (0 for the first page)
+     * @param limit     the maximum number of users to return
+     * @return matching users ordered by ID
+     */
+    @Query(value = "SELECT " + USER_COLUMNS + " FROM users WHERE first_name ILIKE " + FIRST_NAME_CONTAINS +
+            " AND last_name ILIKE " + LAST_NAME_CONTAINS +
+            " AND id > :afterId ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<User> searchByFullName(@Param("firstName") String firstName,
+                                @Param("lastName") String lastName,
+                                @Param("afterId") Long afterId,
+                                @Param("limit") int limit);
 
     /**
-     * Find all users whose email ends with the specified domain (case-insensitive).
-     * Uses native SQL for direct database access.
+     * Find the page of users following the given ID whose email belongs to the specified domain.
+     * Answered by a range scan of the (email_domain, id) index.
      *
-     * @param domain the email domain to search for, e.g. "@gmail.com"
-     * @return list of users whose email ends with the given domain
+     * @param domain  the lower-cased email domain to search for, e.g. "gmail.com"
+     * @param afterId the last ID seen by the client (0 for the first page)
+     * @param limit   the maximum number of users to return
+     * @return matching users ordered by ID
      */
-    @Query(value = "SELECT * FROM users WHERE email ILIKE :pattern", nativeQuery = true)
-    List<User> findByEmailDomain(@Param("pattern") String domain);
+    @Query(value = "SELECT " + USER_COLUMNS + " FROM users WHERE email_domain = :domain " +
+            "AND id > :afterId ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<User> findByEmailDomainAfter(@Param("domain") String domain,
+                                      @Param("afterId") Long afterId,
+                                      @Param("limit") int limit);
 
 }
@@ -0,0 +1,184 @@
+package com.example.flo_usr_demo.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the {@link UserCache} of every replica of the service coherent through PostgreSQL LISTEN/NOTIFY.
+ * <p>
+ * After a write, {@link #publish} sends the affected IDs on a notification channel. Each node listens on
+ * that channel over a dedicated connection and evicts the IDs written by other nodes. Notifications sent
+ * inside a transaction are delivered by PostgreSQL only when it commits.
+ * <p>
+ * Notifications sent while a node is disconnected are lost, so the local cache is cleared every time
+ * the listening connection is (re)established; staleness is therefore bounded by the reconnect delay
+ * and, in the worst case, by the cache TTL.
+ */
+@Component
+public class ClusterCacheInvalidator {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterCacheInvalidator.class);
+
+    /** PostgreSQL rejects payloads of 8000 bytes or more. */
+    private static final int MAX_PAYLOAD = 7900;
+    private static final long POLL_MILLIS = 500;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    /** Identifies this node, so that it ignores its own notifications. */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private UserCache cache;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private DataSourceProperties dataSource;
+
+    @Value("${app.cache.cluster-invalidation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cache.cluster-invalidation.channel:users_cache_invalidation}")
+    private String channel;
+
+    private volatile boolean running;
+    private Thread listener;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalStateException("Invalid notification channel name: " + channel);
+        }
+        running = true;
+        listener = new Thread(this::listen, "user-cache-invalidation");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+            listener.join(2 * POLL_MILLIS);
+        }
+    }
+
+    /**
+     * Tell the other nodes that the given users changed.
+     * When called inside a transaction the notification is delivered only if the transaction commits.
+     *
+     * @param ids the IDs of the updated or deleted users
+     */
+    public void publish(Collection<Long> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        for (String payload : payloads(ids)) {
+            jdbc.execute("SELECT pg_notify(?, ?)", (PreparedStatementCallback<Boolean>) ps -> {
+                ps.setString(1, channel);
+                ps.setString(2, payload);
+                return ps.execute();
+            });
+        }
+    }
+
+    /**
+     * Split the IDs into "nodeId:id,id,..." payloads below the PostgreSQL size limit.
+     */
+    private List<String> payloads(Collection<Long> ids) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder sb = new StringBuilder(nodeId).append(':');
+        int emptyLength = sb.length();
+        for (Long id : ids) {
+            if (sb.length() > MAX_PAYLOAD) {
+                payloads.add(sb.substring(0, sb.length() - 1));
+                sb.setLength(emptyLength);
+            }
+            sb.append(id).append(',');
+        }
+        payloads.add(sb.substring(0, sb.length() - 1));
+        return payloads;
+    }
+
+    /**
+     * Evict the IDs carried by a notification, unless it was sent by this node.
+     */
+    void handle(String payload) {
+        int sep = payload.indexOf(':');
+        if (sep < 0 || payload.substring(0, sep).equals(nodeId)) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (String id : payload.substring(sep + 1).split(",")) {
+            try {
+                ids.add(Long.parseLong(id));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed cache invalidation payload: {}", payload);
+                return;
+            }
+        }
+        cache.evictAll(ids);
+    }
+
+    private void listen() {
+        long backoff = POLL_MILLIS;
+        while (running) {
+            try (Connection conn = DriverManager.getConnection(
+                    dataSource.determineUrl(), dataSource.determineUsername(), dataSource.determinePassword())) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + channel);
+                }
+                // anything published while we were not listening has been missed
+                cache.clear();
+                backoff = POLL_MILLIS;
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications((int) POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification n : notifications) {
+                            handle(n.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cache invalidation listener disconnected, retrying in {} ms", backoff, e);
+                cache.clear();
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.flo_usr_demo.service;
+
+/**
+ * Set of emails that keeps only a 64-bit hash of each one, in an open-addressing array of longs:
+ * about 16 bytes per email instead of the ~100 of a {@code HashSet<String>} holding the strings,
+ * so the emails of a file with tens of millions of rows fit comfortably in memory.
+ * <p>
+ * Two different emails with the same hash are taken for the same one. With n emails this happens
+ * with probability about n²/2⁶⁵ (less than one in ten thousand for 50 million rows).
+ * Not thread-safe.
+ */
+final class EmailHashSet {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** Marks a free slot; a hash equal to it is stored as {@link #ZERO_SUBSTITUTE}. */
+    private static final long FREE = 0L;
+    private static final long ZERO_SUBSTITUTE = 1L;
+
+    private long[] slots = new long[1024];
+    private int size;
+
+    /**
+     * Add an email to the set.
+     *
+     * @param email the email, compared exactly as the unique constraint of the users table does
+     * @return true if the email was not in the set yet
+     */
+    boolean add(String email) {
+        if (2 * (size + 1) > slots.length) {
+            grow();
+        }
+        if (insert(slots, hash(email))) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    /** @return the number of distinct emails added */
+    int size() {
+        return size;
+    }
+
+    private static boolean insert(long[] table, long hash) {
+        int mask = table.length - 1;
+        int i = (int) hash & mask;
+        while (table[i] != FREE) {
+            if (table[i] == hash) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = hash;
+        return true;
+    }
+
+    private void grow() {
+        long[] bigger = new long[slots.length * 2];
+        for (long hash : slots) {
+            if (hash != FREE) {
+                insert(bigger, hash);
+            }
+        }
+        slots = bigger;
+    }
+
+    /**
+     * FNV-1a over the UTF-16 chars, finished with the SplitMix64 mixer so that the low bits
+     * used to pick the slot depend on the whole email.
+     */
+    private static long hash(String email) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < email.length(); i++) {
+            h = (h ^ email.charAt(i)) * FNV_PRIME;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        h = h ^ (h >>> 31);
+        return h == FREE ? ZERO_SUBSTITUTE : h;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.flo_usr_demo.service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mutable, thread-safe progress record of an asynchronous CSV import.
+ * Counters are updated by the pipeline stages and read by the polling endpoints; when the job resumes
+ * an interrupted import of the same file, they only count the rows after {@link #getResumedAfterRow()}.
+ */
+public class ImportJob {
+
+    /** Maximum number of error messages kept per job, to bound memory on very dirty files. */
+    static final int MAX_ERRORS = 100;
+
+    private final String id;
+    private final String fileName;
+    private final Path sourceFile;
+    private final boolean spooled;
+    private volatile String fileHash;
+    private final Instant createdAt = Instant.now();
+
+    private final AtomicLong rowsRead     = new AtomicLong();
+    private final AtomicLong rowsAccepted = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+
+    private volatile ImportJobStatus status = ImportJobStatus.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile long resumedAfterRow;
+
+    /**
+     * @param id         the job ID
+     * @param fileName   the name of the file, for clients
+     * @param sourceFile the file to import
+     * @param spooled    true if the source file is a temporary copy of an upload, deleted when the job ends
+     * @param fileHash   the SHA-256 of the file, hex, or null if the job computes it when it starts
+     */
+    public ImportJob(String id, String fileName, Path sourceFile, boolean spooled, String fileHash) {
+        this.id = id;
+        this.fileName = fileName;
+        this.sourceFile = sourceFile;
+        this.spooled = spooled;
+        this.fileHash = fileHash;
+    }
+
+    // ----------------------------------------------------------------
+    // State transitions
+    // ----------------------------------------------------------------
+
+    synchronized boolean start() {
+        if (status != ImportJobStatus.QUEUED) {
+            return false;
+        }
+        status = ImportJobStatus.RUNNING;
+        startedAt = Instant.now();
+        return true;
+    }
+
+    synchronized void finish(ImportJobStatus finalStatus) {
+        if (status.isFinal()) {
+            return;
+        }
+        status = finalStatus;
+        finishedAt = Instant.now();
+    }
+
+    /**
+     * Request cancellation. Running stages notice the flag at their next chunk boundary;
+     * a chunk being committed by {@link #ifActive} is committed first, and the job is cancelled after it.
+     *
+     * @return false if the job had already finished
+     */
+    synchronized boolean cancel() {
+        if (status.isFinal()) {
+            return false;
+        }
+        finish(ImportJobStatus.CANCELLED);
+        return true;
+    }
+
+    /** @return true while the pipeline stages should keep working */
+    boolean isActive() {
+        return status == ImportJobStatus.RUNNING;
+    }
+
+    /**
+     * Run a step that writes to the database, such as a chunk and its checkpoint, unless the job is no longer
+     * active. The job stays locked until the step returns, so {@link #cancel()} waits for a step in progress:
+     * once a job is reported cancelled, it commits nothing more.
+     *
+     * @param step the step to run
+     * @return false if the job was cancelled or failed and the step did not run
+     */
+    synchronized boolean ifActive(Runnable step) {
+        if (!isActive()) {
+            return false;
+        }
+        step.run();
+        return true;
+    }
+
+    void addError(String message) {
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(message);
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------
+    // Getters
+    // ----------------------------------------------------------------
+
+    public String getId() { return id; }
+    public String getFileName() { return fileName; }
+    Path getSourceFile() { return sourceFile; }
+    boolean isSpooled() { return spooled; }
+    /** @return the SHA-256 of the file, hex, or null until the job has computed it */
+    public String getFileHash() { return fileHash; }
+    void setFileHash(String fileHash) { this.fileHash = fileHash; }
+    public ImportJobStatus getStatus() { return status; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+
+    /** @return the number of data rows imported by an earlier, interrupted job for the same file and skipped */
+    public long getResumedAfterRow() { return resumedAfterRow; }
+    void setResumedAfterRow(long rows) { this.resumedAfterRow = rows; }
+
+    AtomicLong rowsRead() { return rowsRead; }
+    AtomicLong rowsAccepted() { return rowsAccepted; }
+    AtomicLong rowsRejected() { return rowsRejected; }
+
+    public long getRowsRead() { return rowsRead.get(); }
+    public long getRowsAccepted() { return rowsAccepted.get(); }
+    public long getRowsRejected() { return rowsRejected.get(); }
+
+    /** @return a snapshot of the recorded error messages */
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+
+    /** @return rows read per second since the job started, or 0 if it has not started yet */
+    public double getRowsPerSecond() {
+        Instant from = startedAt;
+        if (from == null) {
+            return 0;
+        }
+        Instant to = finishedAt != null ? finishedAt : Instant.now();
+        long millis = Math.max(1, Duration.between(from, to).toMillis());
+        return rowsRead.get() * 1000.0 / millis;
+    }
+}
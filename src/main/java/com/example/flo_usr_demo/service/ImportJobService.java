@@ -0,0 +1,673 @@
+package com.example.flo_usr_demo.service;
+
+import com.example.flo_usr_demo.dto.RowErrorDto;
+import com.example.flo_usr_demo.dto.UserCreateDto;
+import com.example.flo_usr_demo.exception.BadRequestException;
+import com.example.flo_usr_demo.exception.ConflictException;
+import com.example.flo_usr_demo.exception.NotFoundException;
+import com.example.flo_usr_demo.exception.TooManyRequestsException;
+import com.example.flo_usr_demo.repository.ImportCheckpointRepository;
+import com.example.flo_usr_demo.repository.ImportCheckpointRepository.Checkpoint;
+import com.example.flo_usr_demo.repository.UserJdbcRepository;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service running CSV imports asynchronously as jobs.
+ * <p>
+ * Each job is a three-stage pipeline: the job thread parses the file (a spooled upload, or a file of the server
+ * read in place) into chunks, a validation stage turns raw rows into {@link UserCreateDto}s (see
+ * {@link UserRowValidator}: constraint violations and emails repeated within the file are rejected without
+ * touching the database) and a persistence stage writes them through JDBC batches. Stages are connected by
+ * bounded queues, so a slow database throttles parsing instead of letting parsed rows pile up on the heap.
+ * Unless {@code app.import.jobs.mapped-parse} is false, the file is memory-mapped and parsed several segments
+ * at a time on {@code app.import.jobs.parse-threads} threads (see {@link MappedCsvParser}).
+ * <p>
+ * Each chunk is committed together with a checkpoint of the file (its SHA-256, the byte offset and the number
+ * of rows after the chunk), so an import interrupted by a restart, a failure or a cancellation does not start
+ * over: when the same file is submitted again, parsing seeks straight to the offset of the last committed chunk.
+ * A file already imported completely is not imported again unless a restart is requested. The SHA-256 of an
+ * upload is computed while it is spooled; a file of the server is hashed by its job, off the request thread.
+ * <p>
+ * At most {@code app.import.jobs.max-concurrent} jobs run at the same time and at most
+ * {@code app.import.jobs.max-queued} wait for a slot; further submissions are refused.
+ * With {@code spring.threads.virtual.enabled} jobs and stages run on virtual threads.
+ */
+@Service
+public class ImportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportJobService.class);
+
+    /** How long a stage waits on a queue before re-checking whether the job is still active. */
+    private static final long POLL_MILLIS = 200;
+
+    /** Size of the regions mapped one after the other to hash a file of the server. */
+    private static final long HASH_REGION = 64L * 1024 * 1024;
+
+    @Autowired
+    private UserJdbcRepository jdbcRepo;
+
+    @Autowired
+    private UserRowValidator rowValidator;
+
+    @Autowired
+    private ImportCheckpointRepository checkpoints;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    @Autowired
+    private UploadDecoder uploads;
+
+    @Value("${app.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.import.jobs.max-concurrent:2}")
+    private int maxConcurrent;
+
+    @Value("${app.import.jobs.max-queued:8}")
+    private int maxQueued;
+
+    @Value("${app.import.jobs.stage-queue-capacity:4}")
+    private int stageQueueCapacity;
+
+    @Value("${app.import.jobs.retained:100}")
+    private int retained;
+
+    @Value("${app.import.jobs.mapped-parse:true}")
+    private boolean mappedParse;
+
+    @Value("${app.import.jobs.parse-threads:0}")
+    private int parseThreads;
+
+    @Value("${app.import.jobs.segment-size:4MB}")
+    private DataSize segmentSize;
+
+    @Value("${app.import.server-dir:}")
+    private String serverDir;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor jobExecutor;
+    private ExecutorService stageExecutor;
+    private ExecutorService parseExecutor;
+    private MappedCsvParser csvParser;
+
+    /**
+     * A chunk of consecutive rows; a chunk of no rows marks the end of the stream.
+     *
+     * @param firstRow  1-based data row number of the first row, used in error messages
+     * @param rowCount  the number of rows of the file in the chunk, including those dropped by validation
+     * @param rows      the rows of the chunk still to be imported
+     * @param endOffset the byte offset in the file right after the last row of the chunk
+     */
+    private record Chunk<T>(long firstRow, int rowCount, List<T> rows, long endOffset) {
+        boolean isEnd() {
+            return rowCount == 0;
+        }
+    }
+
+    @PostConstruct
+    void startExecutors() {
+        // the job executor keeps bounding running and queued jobs, with virtual threads too
+        jobExecutor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueued), threadFactory("import-job-"));
+        if (virtualThreads) {
+            // stages only exist while their job runs, so they need no pool of their own
+            stageExecutor = Executors.newThreadPerTaskExecutor(threadFactory("import-stage-"));
+        } else {
+            // every running job owns one validation and one persistence stage
+            stageExecutor = Executors.newFixedThreadPool(2 * maxConcurrent, threadFactory("import-stage-"));
+        }
+        // parsing is CPU bound: platform threads, one per core unless configured otherwise
+        int threads = parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors();
+        parseExecutor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("import-parse-"));
+        csvParser = new MappedCsvParser(parseExecutor, threads, segmentSize.toBytes());
+    }
+
+    private ThreadFactory threadFactory(String prefix) {
+        return virtualThreads
+                ? Thread.ofVirtual().name(prefix, 1).factory()
+                : new CustomizableThreadFactory(prefix);
+    }
+
+    @PreDestroy
+    void stopExecutors() {
+        jobs.values().forEach(ImportJob::cancel);
+        jobExecutor.shutdownNow();
+        stageExecutor.shutdownNow();
+        parseExecutor.shutdownNow();
+    }
+
+    /**
+     * Spool an uploaded CSV file and queue it for import.
+     * If an earlier import of the same file was interrupted, the job resumes after its last committed chunk.
+     *
+     * @param file    the uploaded CSV file, optionally gzip or zstd compressed; it is spooled decompressed
+     * @param restart true to forget any earlier import of the same file and start from the first row
+     * @return the queued job
+     * @throws IOException              if the upload cannot be spooled to disk
+     * @throws BadRequestException      if the compressed upload is corrupt or too large once decompressed
+     * @throws ConflictException        if the same file is already being imported by another job
+     * @throws TooManyRequestsException if the maximum number of running and queued jobs is reached
+     */
+    public ImportJob submit(MultipartFile file, boolean restart) throws IOException {
+        Path spool = Files.createTempFile("user-import-", ".csv");
+        String fileHash;
+        try {
+            fileHash = spool(file, spool);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+
+        return enqueue(new ImportJob(UUID.randomUUID().toString(), file.getOriginalFilename(), spool, true, fileHash),
+                restart);
+    }
+
+    /**
+     * Queue a file of the server for import, read in place.
+     * Only files inside {@code app.import.server-dir} can be imported; the file is left where it is.
+     * The file is hashed by the job, so that a large file does not hold the request: if the same file turns out
+     * to be already imported by another job, the job fails with an error saying so.
+     * If an earlier import of the same file was interrupted, the job resumes after its last committed chunk.
+     *
+     * @param path    the path of the file, relative to the import directory
+     * @param restart true to forget any earlier import of the same file and start from the first row
+     * @return the queued job
+     * @throws BadRequestException      if server-side imports are disabled or the path is outside the import directory
+     * @throws NotFoundException        if the file does not exist
+     * @throws IOException              if the path cannot be resolved
+     * @throws TooManyRequestsException if the maximum number of running and queued jobs is reached
+     */
+    public ImportJob submitServerFile(String path, boolean restart) throws IOException {
+        Path file = resolveServerFile(path);
+        return enqueue(new ImportJob(UUID.randomUUID().toString(), file.getFileName().toString(), file, false,
+                null), restart);
+    }
+
+    private ImportJob enqueue(ImportJob job, boolean restart) {
+        synchronized (jobs) {
+            if (job.getFileHash() != null) {
+                Optional<ImportJob> running = importing(job.getFileHash());
+                if (running.isPresent()) {
+                    deleteSpool(job);
+                    throw new ConflictException("The same file is already being imported by job "
+                            + running.get().getId());
+                }
+            }
+            jobs.put(job.getId(), job);
+        }
+        try {
+            jobExecutor.execute(() -> run(job, restart));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            deleteSpool(job);
+            throw new TooManyRequestsException("Too many imports in progress, retry later");
+        }
+        pruneFinishedJobs();
+        return job;
+    }
+
+    /**
+     * @return the job, not finished yet, importing the file with the given hash, if any
+     */
+    private Optional<ImportJob> importing(String fileHash) {
+        return jobs.values().stream()
+                .filter(j -> !j.getStatus().isFinal() && fileHash.equals(j.getFileHash()))
+                .findFirst();
+    }
+
+    /**
+     * Resolve a path sent by a client against the import directory, refusing anything outside it,
+     * symbolic links included.
+     */
+    private Path resolveServerFile(String path) throws IOException {
+        if (serverDir == null || serverDir.isBlank()) {
+            throw new BadRequestException("Server-side imports are disabled (app.import.server-dir is not set)");
+        }
+        Path base = Path.of(serverDir);
+        if (!Files.isDirectory(base)) {
+            throw new BadRequestException("Server-side imports are disabled (the import directory does not exist)");
+        }
+        base = base.toRealPath();
+        Path file;
+        try {
+            Path candidate = base.resolve(path).normalize();
+            if (!candidate.startsWith(base)) {
+                throw new BadRequestException("Path is outside the import directory: " + path);
+            }
+            file = candidate.toRealPath();
+        } catch (InvalidPathException e) {
+            throw new BadRequestException("Invalid path: " + path);
+        } catch (NoSuchFileException e) {
+            throw new NotFoundException("File not found in the import directory: " + path);
+        }
+        if (!file.startsWith(base) || !Files.isRegularFile(file)) {
+            throw new BadRequestException("Not a file inside the import directory: " + path);
+        }
+        return file;
+    }
+
+    /**
+     * Retrieve a job by its ID.
+     *
+     * @param id the job ID
+     * @return an Optional containing the job if it is known
+     */
+    public Optional<ImportJob> get(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * List all known jobs, most recent first.
+     *
+     * @return the running, queued and retained finished jobs
+     */
+    public List<ImportJob> list() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(ImportJob::getCreatedAt).reversed())
+                .toList();
+    }
+
+    /**
+     * Cancel a job. Rows already written by the persistence stage are kept; if a chunk is being committed,
+     * this waits for it, so the job writes nothing once it is reported cancelled.
+     *
+     * @param id the job ID
+     * @return an Optional containing the job if it is known
+     */
+    public Optional<ImportJob> cancel(String id) {
+        Optional<ImportJob> job = get(id);
+        job.ifPresent(ImportJob::cancel);
+        return job;
+    }
+
+    // ----------------------------------------------------------------
+    // Pipeline
+    // ----------------------------------------------------------------
+
+    /**
+     * Hash the file of a job through memory mapping, without copying it to the heap.
+     *
+     * @return the SHA-256 of the file, hex, or null if the job was cancelled meanwhile
+     */
+    private static String sha256(ImportJob job) throws IOException {
+        MessageDigest sha256 = newSha256();
+        try (FileChannel channel = FileChannel.open(job.getSourceFile(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += HASH_REGION) {
+                if (!job.isActive()) {
+                    return null;
+                }
+                sha256.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(HASH_REGION, size - position)));
+            }
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    /**
+     * Give a job the hash of its file, unless another job is already importing the same file:
+     * the job then fails, as a second submission of an upload would be refused.
+     *
+     * @return false if the job failed
+     */
+    private boolean claimFileHash(ImportJob job, String fileHash) {
+        synchronized (jobs) {
+            Optional<ImportJob> running = importing(fileHash);
+            if (running.isPresent()) {
+                job.addError("The same file is already being imported by job " + running.get().getId());
+                job.finish(ImportJobStatus.FAILED);
+                return false;
+            }
+            job.setFileHash(fileHash);
+            return true;
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Copy the upload to the spool file, decompressed, hashing it on the way.
+     * The hash is the one of the decompressed content, so the checkpoint of a file is found
+     * whether it is sent compressed or not.
+     *
+     * @return the SHA-256 of the file, hex
+     */
+    private String spool(MultipartFile file, Path spool) throws IOException {
+        MessageDigest sha256 = newSha256();
+        try (InputStream in = new DigestInputStream(uploads.open(file), sha256)) {
+            Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    private void run(ImportJob job, boolean restart) {
+        if (!job.start()) {
+            // cancelled while waiting in the queue
+            deleteSpool(job);
+            return;
+        }
+        Checkpoint checkpoint;
+        try {
+            if (job.getFileHash() == null) {
+                String fileHash = sha256(job);
+                if (fileHash == null || !claimFileHash(job, fileHash)) {
+                    return;
+                }
+            }
+            if (restart) {
+                checkpoints.delete(job.getFileHash());
+            }
+            checkpoint = checkpoints.find(job.getFileHash()).orElse(null);
+        } catch (IOException | RuntimeException e) {
+            fail(job, e);
+            deleteSpool(job);
+            return;
+        }
+        if (checkpoint != null) {
+            job.setResumedAfterRow(checkpoint.rowsDone());
+            if (checkpoint.completed()) {
+                job.addError("File already imported at " + checkpoint.updatedAt()
+                        + ", submit it with restart=true to import it again");
+                job.finish(ImportJobStatus.COMPLETED);
+                deleteSpool(job);
+                return;
+            }
+        }
+        BlockingQueue<Chunk<String[]>> parsed = new ArrayBlockingQueue<>(stageQueueCapacity);
+        BlockingQueue<Chunk<UserCreateDto>> validated = new ArrayBlockingQueue<>(stageQueueCapacity);
+        Future<?> validator = stageExecutor.submit(() -> stage(job, () -> validate(job, parsed, validated)));
+        Future<?> persister = stageExecutor.submit(() -> stage(job, () -> persist(job, validated)));
+        try {
+            stage(job, () -> parse(job, checkpoint, parsed));
+            validator.get();
+            persister.get();
+            job.finish(ImportJobStatus.COMPLETED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.cancel();
+        } catch (ExecutionException e) {
+            fail(job, e.getCause());
+        } finally {
+            validator.cancel(true);
+            persister.cancel(true);
+            deleteSpool(job);
+        }
+    }
+
+    /**
+     * Parse the file into chunks, starting after the checkpoint if there is one.
+     */
+    private void parse(ImportJob job, Checkpoint from, BlockingQueue<Chunk<String[]>> out) throws Exception {
+        if (mappedParse) {
+            parseMapped(job, from, out);
+        } else {
+            parseLines(job, from, out);
+        }
+    }
+
+    /**
+     * Parse the memory-mapped file, several segments at a time (see {@link MappedCsvParser}).
+     * Chunks never span two segments.
+     */
+    private void parseMapped(ImportJob job, Checkpoint from, BlockingQueue<Chunk<String[]>> out) throws Exception {
+        try (FileChannel channel = FileChannel.open(job.getSourceFile(), StandardOpenOption.READ)) {
+            long start = from == null ? MappedCsvParser.headerEnd(channel) : from.byteOffset();
+            long[] firstRow = {from == null ? 1 : from.rowsDone() + 1};
+            boolean parsed = csvParser.parse(channel, start, segment -> {
+                List<String[]> rows = segment.rows();
+                for (int first = 0; first < rows.size(); first += chunkSize) {
+                    int to = Math.min(first + chunkSize, rows.size());
+                    job.rowsRead().addAndGet(to - first);
+                    Chunk<String[]> chunk = new Chunk<>(firstRow[0], to - first, rows.subList(first, to),
+                            segment.endOffsets()[to - 1]);
+                    if (!job.isActive() || !put(job, out, chunk)) {
+                        return false;
+                    }
+                    firstRow[0] += to - first;
+                }
+                return job.isActive();
+            });
+            if (parsed) {
+                put(job, out, new Chunk<>(firstRow[0], 0, List.of(), channel.size()));
+            }
+        }
+    }
+
+    /**
+     * Parse the file line by line with opencsv, on the job thread.
+     */
+    private void parseLines(ImportJob job, Checkpoint from, BlockingQueue<Chunk<String[]>> out) throws Exception {
+        long startOffset = from == null ? 0 : from.byteOffset();
+        try (InputStream in = Files.newInputStream(job.getSourceFile())) {
+            // seeks: the rows before the offset are not read again
+            in.skipNBytes(startOffset);
+            OffsetTrackingReader lines = new OffsetTrackingReader(in, startOffset);
+            CSVReader csv = new CSVReaderBuilder(lines).withVerifyReader(false).build();
+            if (startOffset == 0) {
+                //avoid headers
+                csv.readNext();
+            }
+
+            List<String[]> rows = new ArrayList<>(chunkSize);
+            long firstRow = from == null ? 1 : from.rowsDone() + 1;
+            String[] line;
+            while (job.isActive() && (line = csv.readNext()) != null) {
+                job.rowsRead().incrementAndGet();
+                rows.add(line);
+                if (rows.size() >= chunkSize) {
+                    if (!put(job, out, new Chunk<>(firstRow, rows.size(), rows, lines.offset()))) {
+                        return;
+                    }
+                    firstRow += rows.size();
+                    rows = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!rows.isEmpty()) {
+                if (!put(job, out, new Chunk<>(firstRow, rows.size(), rows, lines.offset()))) {
+                    return;
+                }
+                firstRow += rows.size();
+            }
+            put(job, out, new Chunk<>(firstRow, 0, List.of(), lines.offset()));
+        }
+    }
+
+    private void validate(ImportJob job,
+                          BlockingQueue<Chunk<String[]>> in,
+                          BlockingQueue<Chunk<UserCreateDto>> out) throws InterruptedException {
+        UserRowValidator.Session session = rowValidator.newSession();
+        Chunk<String[]> chunk;
+        while ((chunk = take(job, in)) != null) {
+            if (chunk.isEnd()) {
+                put(job, out, new Chunk<>(chunk.firstRow(), 0, List.of(), chunk.endOffset()));
+                return;
+            }
+            UserRowValidator.Result result = session.validate(chunk.firstRow(), chunk.rows());
+            job.rowsRejected().addAndGet(chunk.rows().size() - result.valid().size());
+            for (RowErrorDto error : result.errors()) {
+                job.addError("Row " + error.getRow() + ": "
+                        + (error.getField() == null ? "" : error.getField() + ": ") + error.getMessage());
+            }
+            // forwarded even when no row is valid, so that the checkpoint moves past the chunk
+            if (!put(job, out, new Chunk<>(chunk.firstRow(), chunk.rowCount(), result.valid(), chunk.endOffset()))) {
+                return;
+            }
+        }
+    }
+
+    private void persist(ImportJob job, BlockingQueue<Chunk<UserCreateDto>> in) throws InterruptedException {
+        Chunk<UserCreateDto> chunk;
+        while ((chunk = take(job, in)) != null) {
+            Chunk<UserCreateDto> committed = chunk;
+            if (chunk.isEnd()) {
+                job.ifActive(() -> {
+                    checkpoints.save(job.getFileHash(), job.getFileName(), committed.endOffset(),
+                            committed.firstRow() - 1, true);
+                    job.finish(ImportJobStatus.COMPLETED);
+                });
+                return;
+            }
+            // the rows and the checkpoint that accounts for them are committed together,
+            // and not at all once the job has been cancelled
+            if (!job.ifActive(() -> commit(job, committed))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Insert a chunk and move the checkpoint past it in one transaction, then count its rows.
+     */
+    private void commit(ImportJob job, Chunk<UserCreateDto> chunk) {
+        int inserted = tx.execute(status -> {
+            int n = jdbcRepo.insertBatch(chunk.rows());
+            checkpoints.save(job.getFileHash(), job.getFileName(), chunk.endOffset(),
+                    chunk.firstRow() - 1 + chunk.rowCount(), false);
+            return n;
+        });
+        int skipped = chunk.rows().size() - inserted;
+        job.rowsAccepted().addAndGet(inserted);
+        if (skipped > 0) {
+            job.rowsRejected().addAndGet(skipped);
+            job.addError("Rows " + chunk.firstRow() + "+: " + skipped + " rows skipped, email already exists");
+        }
+    }
+
+    // ----------------------------------------------------------------
+    // Helpers
+    // ----------------------------------------------------------------
+
+    @FunctionalInterface
+    private interface StageBody {
+        void run() throws Exception;
+    }
+
+    /**
+     * Run a stage body, turning any failure into a failed job so the other stages stop too.
+     */
+    private void stage(ImportJob job, StageBody body) {
+        try {
+            body.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            fail(job, e);
+        }
+    }
+
+    private void fail(ImportJob job, Throwable cause) {
+        log.warn("Import job {} failed", job.getId(), cause);
+        job.addError("Import failed: " + cause.getMessage());
+        job.finish(ImportJobStatus.FAILED);
+    }
+
+    /**
+     * Blocking put that gives up as soon as the job is cancelled or failed.
+     *
+     * @return false if the job is no longer active
+     */
+    private static <T> boolean put(ImportJob job, BlockingQueue<T> queue, T item) throws InterruptedException {
+        while (job.isActive()) {
+            if (queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Blocking take that gives up as soon as the job is cancelled or failed.
+     *
+     * @return the next item, or null if the job is no longer active
+     */
+    private static <T> T take(ImportJob job, BlockingQueue<T> queue) throws InterruptedException {
+        while (job.isActive()) {
+            T item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (item != null) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    private static void deleteSpool(ImportJob job) {
+        if (!job.isSpooled()) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(job.getSourceFile());
+        } catch (IOException e) {
+            log.warn("Could not delete spool file {}", job.getSourceFile(), e);
+        }
+    }
+
+    /**
+     * Forget the oldest finished jobs once more than {@code app.import.jobs.retained} are known.
+     */
+    private void pruneFinishedJobs() {
+        int excess = jobs.size() - retained;
+        if (excess <= 0) {
+            return;
+        }
+        Collection<ImportJob> finished = jobs.values().stream()
+                .filter(j -> j.getStatus().isFinal())
+                .sorted(Comparator.comparing(ImportJob::getCreatedAt))
+                .limit(excess)
+                .toList();
+        finished.forEach(j -> jobs.remove(j.getId()));
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.flo_usr_demo.service;
+
+/**
+ * Lifecycle states of an asynchronous CSV import job.
+ */
+public enum ImportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED;
+
+    /** @return true if the job will not make any further progress */
+    public boolean isFinal() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
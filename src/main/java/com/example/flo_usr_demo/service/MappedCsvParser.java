@@ -0,0 +1,268 @@
+package com.example.flo_usr_demo.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * CSV parser working directly on a memory-mapped UTF-8 file, for bulk imports of large files.
+ * <p>
+ * The file is cut into segments of about {@code segmentSize} bytes that end at a row boundary, and up to
+ * {@code parallelism} segments are parsed at the same time on the given executor; rows are handed to the
+ * caller segment by segment, in file order. The segment boundaries are found on the calling thread, by a
+ * quick scan of each segment ahead of its parsing: that scan is serial and bounds the speedup.
+ * <p>
+ * There is no intermediate line, {@code char[]} or {@code StringBuilder}: each field is bulk-copied from the
+ * mapped bytes, which live outside the heap, into a reusable byte array, unescaping any {@code ""} on the way,
+ * and decoded from there into its {@code String}.
+ * <p>
+ * The format is RFC 4180: comma separated, fields optionally enclosed in double quotes, a double quote
+ * inside a quoted field written twice, rows ending with "\n" or "\r\n". Quoted fields may contain commas
+ * and line breaks. Unlike the default opencsv parser, backslash is not an escape character.
+ * <p>
+ * A double quote opens a quoted field only at the start of the field. A double quote anywhere else in an
+ * unquoted field makes the row malformed: it is returned as null, and parsing resumes at the next line break,
+ * so one stray quote cannot swallow or split the rows that follow it.
+ */
+public final class MappedCsvParser {
+
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final long segmentSize;
+
+    /**
+     * Rows parsed from one segment of the file.
+     *
+     * @param rows       the fields of each row, or null for a malformed row
+     * @param endOffsets for each row, the offset in the file right after it, where the next row starts
+     */
+    public record Rows(List<String[]> rows, long[] endOffsets) {
+    }
+
+    /**
+     * Receives the rows of the file, one segment at a time and in file order.
+     */
+    @FunctionalInterface
+    public interface RowsConsumer {
+
+        /**
+         * @param rows the rows of the next segment
+         * @return false to stop parsing
+         */
+        boolean accept(Rows rows) throws Exception;
+    }
+
+    /**
+     * @param executor    runs the parsing of the segments
+     * @param parallelism the maximum number of segments parsed at the same time
+     * @param segmentSize the approximate size of a segment, in bytes
+     */
+    public MappedCsvParser(ExecutorService executor, int parallelism, long segmentSize) {
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        this.segmentSize = Math.max(1, segmentSize);
+    }
+
+    /**
+     * @param file the CSV file
+     * @return the offset of the first data row, right after the header row
+     * @throws IOException if the file cannot be read
+     */
+    public static long headerEnd(FileChannel file) throws IOException {
+        return segmentEnd(file, 0, 1);
+    }
+
+    /**
+     * Parse the file from the given offset to its end.
+     *
+     * @param file     the CSV file
+     * @param start    the offset of the first row to parse; must be the start of a row
+     * @param consumer receives the rows of each segment, in file order, on the calling thread
+     * @return true if the whole file was parsed, false if the consumer stopped it
+     * @throws Exception whatever the consumer throws, or an IOException if the file cannot be read
+     */
+    public boolean parse(FileChannel file, long start, RowsConsumer consumer) throws Exception {
+        long size = file.size();
+        Deque<Future<Rows>> window = new ArrayDeque<>(parallelism);
+        long next = start;
+        try {
+            while (next < size || !window.isEmpty()) {
+                while (next < size && window.size() < parallelism) {
+                    long from = next;
+                    long to = segmentEnd(file, from, segmentSize);
+                    window.add(executor.submit(() -> parseSegment(file, from, to)));
+                    next = to;
+                }
+                Rows rows;
+                try {
+                    rows = window.poll().get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException cause) {
+                        throw cause;
+                    }
+                    throw e;
+                }
+                if (!consumer.accept(rows)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            window.forEach(f -> f.cancel(true));
+        }
+    }
+
+    /**
+     * Find where the segment starting at {@code start} ends: at the first line break outside quoted fields
+     * at least {@code target} bytes after the start, or at the end of the file.
+     * Fields are tracked from the start of the segment, which must be the start of a row, with the same rules
+     * as {@link #parseSegment}: only a quote at the start of a field opens a quoted field.
+     */
+    static long segmentEnd(FileChannel file, long start, long target) throws IOException {
+        long size = file.size();
+        long window = Math.min(size - start, Math.max(2 * target, 64 * 1024));
+        while (true) {
+            if (window > Integer.MAX_VALUE) {
+                throw new IOException("CSV row at offset " + start + " is longer than 2 GB");
+            }
+            MappedByteBuffer bytes = file.map(FileChannel.MapMode.READ_ONLY, start, window);
+            boolean more = start + window < size;
+            boolean quoted = false;
+            boolean fieldStart = true;
+            for (int i = 0; i < window; i++) {
+                byte b = bytes.get(i);
+                if (quoted) {
+                    if (b == '"') {
+                        if (i + 1 == window && more) {
+                            // is it "" or the closing quote? the next byte is not mapped yet
+                            break;
+                        }
+                        if (i + 1 < window && bytes.get(i + 1) == '"') {
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    }
+                } else if (b == '"' && fieldStart) {
+                    quoted = true;
+                    fieldStart = false;
+                } else if (b == ',') {
+                    fieldStart = true;
+                } else if (b == '\n') {
+                    if (i + 1 >= target) {
+                        return start + i + 1;
+                    }
+                    fieldStart = true;
+                } else {
+                    fieldStart = false;
+                }
+            }
+            if (start + window >= size) {
+                return size;
+            }
+            window = Math.min(size - start, 2 * window);
+        }
+    }
+
+    /**
+     * Parse the rows between two row boundaries.
+     */
+    static Rows parseSegment(FileChannel file, long start, long end) throws IOException {
+        MappedByteBuffer bytes = file.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int limit = bytes.limit();
+        List<String[]> rows = new ArrayList<>();
+        long[] endOffsets = new long[256];
+        String[] fields = new String[8];
+        byte[] scratch = new byte[256];
+
+        int pos = 0;
+        while (pos < limit) {
+            int count = 0;
+            boolean endOfRow = false;
+            boolean malformed = false;
+            while (!endOfRow) {
+                int length;
+                if (pos < limit && bytes.get(pos) == '"') {
+                    // quoted: copy the content run by run, turning "" into "
+                    pos++;
+                    length = 0;
+                    while (pos < limit) {
+                        int from = pos;
+                        while (pos < limit && bytes.get(pos) != '"') {
+                            pos++;
+                        }
+                        int run = pos - from;
+                        boolean escaped = pos + 1 < limit && bytes.get(pos + 1) == '"';
+                        if (length + run + 1 > scratch.length) {
+                            scratch = Arrays.copyOf(scratch, Math.max(length + run + 1, 2 * scratch.length));
+                        }
+                        bytes.get(from, scratch, length, run);
+                        length += run;
+                        if (!escaped) {
+                            // closing quote, or unterminated field at the end of the segment
+                            pos = Math.min(pos + 1, limit);
+                            break;
+                        }
+                        scratch[length++] = '"';
+                        pos += 2;
+                    }
+                    // anything between the closing quote and the delimiter (e.g. the \r of \r\n) is dropped
+                    while (pos < limit && bytes.get(pos) != ',' && bytes.get(pos) != '\n') {
+                        pos++;
+                    }
+                } else {
+                    int from = pos;
+                    while (pos < limit && bytes.get(pos) != ',' && bytes.get(pos) != '\n') {
+                        if (bytes.get(pos) == '"') {
+                            malformed = true;
+                        }
+                        pos++;
+                    }
+                    if (malformed) {
+                        // a quote inside an unquoted field: drop the rest of the row
+                        while (pos < limit && bytes.get(pos) != '\n') {
+                            pos++;
+                        }
+                        pos = Math.min(pos + 1, limit);
+                        break;
+                    }
+                    length = pos - from;
+                    if (length > 0 && bytes.get(pos - 1) == '\r' && (pos == limit || bytes.get(pos) == '\n')) {
+                        length--;
+                    }
+                    if (length > scratch.length) {
+                        scratch = new byte[Math.max(length, 2 * scratch.length)];
+                    }
+                    bytes.get(from, scratch, 0, length);
+                }
+                if (count == fields.length) {
+                    fields = Arrays.copyOf(fields, 2 * count);
+                }
+                fields[count++] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+
+                if (pos < limit && bytes.get(pos) == ',') {
+                    pos++;
+                } else {
+                    // line break or end of the segment
+                    pos = Math.min(pos + 1, limit);
+                    endOfRow = true;
+                }
+            }
+            if (rows.size() == endOffsets.length) {
+                endOffsets = Arrays.copyOf(endOffsets, 2 * endOffsets.length);
+            }
+            endOffsets[rows.size()] = start + pos;
+            rows.add(malformed ? null : Arrays.copyOf(fields, count));
+        }
+        return new Rows(rows, Arrays.copyOf(endOffsets, rows.size()));
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.flo_usr_demo.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Line source for {@link com.opencsv.CSVReader} that knows the byte offset, in the underlying UTF-8 file,
+ * of the end of the last line it returned. Since the CSV reader only consumes whole lines, after each record
+ * the offset is exactly where the next record starts, which an import can checkpoint and seek back to.
+ * <p>
+ * Lines end with "\n" or "\r\n". It extends {@link BufferedReader} so that the CSV reader calls
+ * {@link #readLine()} directly instead of wrapping it in a buffer of its own, which would read ahead;
+ * the CSV reader must also be built with {@code withVerifyReader(false)}, as verifying the reader would
+ * read ahead one character. The character reads work as well, a line at a time: the offset moves to the
+ * end of a line once its last character, terminator included, has been read. Mark and reset are not supported.
+ */
+final class OffsetTrackingReader extends BufferedReader {
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[64 * 1024];
+    private int position;
+    private int limit;
+    private byte[] line = new byte[1024];
+    private long offset;
+
+    /** Line being returned by the character reads, terminator included, or null between lines. */
+    private String pending;
+    private int pendingPosition;
+    private long pendingEnd;
+
+    /**
+     * @param in          the file content, positioned at {@code startOffset}
+     * @param startOffset the offset of the first byte of {@code in} in the file
+     */
+    OffsetTrackingReader(InputStream in, long startOffset) {
+        super(Reader.nullReader(), 1);
+        this.in = in;
+        this.offset = startOffset;
+    }
+
+    /** @return the offset in the file right after the last line returned */
+    long offset() {
+        return offset;
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        if (pending != null) {
+            // the rest of a line partly returned by read()
+            String rest = pending.substring(pendingPosition);
+            offset = pendingEnd;
+            pending = null;
+            int end = rest.length();
+            if (end > 0 && rest.charAt(end - 1) == '\n') {
+                end--;
+            }
+            if (end > 0 && rest.charAt(end - 1) == '\r') {
+                end--;
+            }
+            return rest.substring(0, end);
+        }
+        int length = nextLine();
+        if (length < 0) {
+            return null;
+        }
+        offset += length;
+        int end = length;
+        if (end > 0 && line[end - 1] == '\n') {
+            end--;
+        }
+        if (end > 0 && line[end - 1] == '\r') {
+            end--;
+        }
+        return new String(line, 0, end, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, cbuf.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (pending == null) {
+            int length = nextLine();
+            if (length < 0) {
+                return -1;
+            }
+            pending = new String(line, 0, length, StandardCharsets.UTF_8);
+            pendingPosition = 0;
+            pendingEnd = offset + length;
+        }
+        int count = Math.min(len, pending.length() - pendingPosition);
+        pending.getChars(pendingPosition, pendingPosition + count, cbuf, off);
+        pendingPosition += count;
+        if (pendingPosition == pending.length()) {
+            offset = pendingEnd;
+            pending = null;
+        }
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        char[] c = new char[1];
+        return read(c, 0, 1) < 0 ? -1 : c[0];
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n < 0) {
+            throw new IllegalArgumentException("skip value is negative");
+        }
+        char[] skipped = new char[(int) Math.min(n, 8192)];
+        long remaining = n;
+        int count;
+        while (remaining > 0 && (count = read(skipped, 0, (int) Math.min(remaining, skipped.length))) >= 0) {
+            remaining -= count;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public boolean ready() {
+        return pending != null || position < limit;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("mark() not supported");
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("reset() not supported");
+    }
+
+    /**
+     * Read the bytes of the next line, terminator included, into {@link #line}.
+     *
+     * @return the number of bytes of the line, or -1 at the end of the file
+     */
+    private int nextLine() throws IOException {
+        int length = 0;
+        boolean newline = false;
+        while (!newline) {
+            if (position == limit && !fill()) {
+                return length == 0 ? -1 : length;
+            }
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            if (position < limit) {
+                position++;
+                newline = true;
+            }
+            int chunk = position - start;
+            if (length + chunk > line.length) {
+                line = Arrays.copyOf(line, Math.max(2 * line.length, length + chunk));
+            }
+            System.arraycopy(buffer, start, line, length, chunk);
+            length += chunk;
+        }
+        return length;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        pending = null;
+        in.close();
+    }
+}
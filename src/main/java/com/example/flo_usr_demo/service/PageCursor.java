@@ -0,0 +1,122 @@
+package com.example.flo_usr_demo.service;
+
+import com.example.flo_usr_demo.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque cursors used by keyset pagination.
+ * A cursor carries the last ID seen by the client, and for ranked results its rank too;
+ * clients must not rely on its format.
+ */
+public final class PageCursor {
+
+    private static final String PREFIX = "u1:";
+    private static final String RANKED_PREFIX = "r1:";
+
+    /**
+     * Position in results ordered by descending rank, then by ID.
+     *
+     * @param rank       the rank of the last item returned to the client
+     * @param lastSeenId the ID of the last item returned to the client
+     */
+    public record Ranked(float rank, long lastSeenId) {
+
+        /** Position before the first result. */
+        public static final Ranked FIRST = new Ranked(Float.POSITIVE_INFINITY, 0L);
+    }
+
+    private PageCursor() {
+    }
+
+    /**
+     * Build the cursor pointing after the given ID.
+     *
+     * @param lastSeenId the ID of the last item returned to the client
+     * @return the opaque cursor
+     */
+    public static String encode(long lastSeenId) {
+        byte[] raw = (PREFIX + lastSeenId).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Read the last seen ID out of a cursor.
+     *
+     * @param cursor the opaque cursor, or null for the first page
+     * @return the last seen ID, or 0 for the first page
+     * @throws BadRequestException if the cursor was not produced by {@link #encode(long)}
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(PREFIX)) {
+                throw new BadRequestException("Invalid cursor: " + cursor);
+            }
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Build the cursor pointing after the given position in ranked results.
+     *
+     * @param position the rank and ID of the last item returned to the client
+     * @return the opaque cursor
+     */
+    public static String encodeRanked(Ranked position) {
+        byte[] raw = (RANKED_PREFIX + position.rank() + ":" + position.lastSeenId()).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Read the position in ranked results out of a cursor.
+     *
+     * @param cursor the opaque cursor, or null for the first page
+     * @return the position, or {@link Ranked#FIRST} for the first page
+     * @throws BadRequestException if the cursor was not produced by {@link #encodeRanked(Ranked)}
+     */
+    public static Ranked decodeRanked(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return Ranked.FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = raw.lastIndexOf(':');
+            if (!raw.startsWith(RANKED_PREFIX) || separator < RANKED_PREFIX.length()) {
+                throw new BadRequestException("Invalid cursor: " + cursor);
+            }
+            float rank = Float.parseFloat(raw.substring(RANKED_PREFIX.length(), separator));
+            if (Float.isNaN(rank)) {
+                throw new BadRequestException("Invalid cursor: " + cursor);
+            }
+            return new Ranked(rank, Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Resolve the page size requested by a client.
+     *
+     * @param requested   the requested size, or null for the default
+     * @param defaultSize the size of a page when none is requested
+     * @param maxSize     the largest page allowed
+     * @return the page size, never above {@code maxSize}
+     * @throws BadRequestException if the requested size is not positive
+     */
+    public static int pageSize(Integer requested, int defaultSize, int maxSize) {
+        if (requested == null) {
+            return Math.min(defaultSize, maxSize);
+        }
+        if (requested < 1) {
+            throw new BadRequestException("limit must be a positive number");
+        }
+        return Math.min(requested, maxSize);
+    }
+}
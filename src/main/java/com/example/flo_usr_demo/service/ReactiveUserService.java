@@ -0,0 +1,99 @@
+package com.example.flo_usr_demo.service;
+
+import com.example.flo_usr_demo.dto.UserDto;
+import com.example.flo_usr_demo.exception.BadRequestException;
+import com.example.flo_usr_demo.exception.NotFoundException;
+import com.example.flo_usr_demo.repository.UserReactiveRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking read path for users, next to the blocking {@link UserService} that owns all writes.
+ * Lookups by ID share the {@link UserCache} with the blocking path, so writes made through
+ * {@link UserService} are visible here as well.
+ */
+@Service
+public class ReactiveUserService {
+
+    @Autowired
+    private UserReactiveRepository repo;
+
+    @Autowired
+    private UserCache cache;
+
+    @Value("${app.pagination.default-size:100}")
+    private int defaultPageSize;
+
+    @Value("${app.pagination.max-size:1000}")
+    private int maxPageSize;
+
+    /**
+     * Retrieve a user by ID.
+     *
+     * @param id the user ID
+     * @return the user, or a {@link NotFoundException} error if it does not exist
+     */
+    public Mono<UserDto> get(Long id) {
+        UserDto cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return repo.findById(id)
+                .map(cache::putIfAbsent)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("User not found with id: " + id)));
+    }
+
+    /**
+     * A page of a streamed search.
+     *
+     * @param items      the users of the page, streamed from the database as they are consumed
+     * @param nextCursor the cursor of the next page, or null on the last page
+     */
+    public record Page(Flux<UserDto> items, String nextCursor) {
+    }
+
+    /**
+     * Search users whose names contain the given fragments (case-insensitive), in ID order, one page at a time.
+     * The next cursor is known before the page is streamed, so that it can be sent ahead of the users:
+     * a first query reads the IDs of the page and of the first user after it, and the page is then streamed
+     * from that range of IDs only. The cursor and the page thus agree even if users are inserted or deleted
+     * in between: consecutive pages cover adjacent ranges, so no user is skipped or repeated.
+     *
+     * @param firstName the fragment of the first name, or null/blank to ignore it
+     * @param lastName  the fragment of the last name, or null/blank to ignore it
+     * @param cursor    the cursor returned with a previous page, or null to start from the first user
+     * @param limit     the page size, or null for {@code app.pagination.default-size};
+     *                  capped at {@code app.pagination.max-size}
+     * @return the page
+     * @throws BadRequestException if the cursor is malformed or the limit is not positive
+     */
+    public Mono<Page> searchPage(String firstName, String lastName, String cursor, Integer limit) {
+        long afterId = PageCursor.decode(cursor);
+        int size = PageCursor.pageSize(limit, defaultPageSize, maxPageSize);
+        String first = blankToNull(firstName);
+        String last = blankToNull(lastName);
+        return repo.findPageRange(first, last, afterId, size)
+                .map(range -> range.more()
+                        // the page ends right before the first user of the next one
+                        ? new Page(repo.search(first, last, afterId, range.lastId() - 1),
+                                PageCursor.encode(range.lastId() - 1))
+                        : new Page(repo.search(first, last, afterId, range.lastId()), null))
+                .defaultIfEmpty(new Page(Flux.empty(), null));
+    }
+
+    /**
+     * Stream every user, in ID order.
+     *
+     * @return all users
+     */
+    public Flux<UserDto> export() {
+        return repo.findAll();
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.flo_usr_demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent identical reads into one: while a load for a key is running, callers asking
+ * for the same key wait for it and share its result (or its exception) instead of running their own.
+ * <p>
+ * Nothing is kept once the load completes, so this is not a cache: a caller arriving afterwards
+ * starts a new load. A caller joining a running load may get a result read just before a write
+ * that completed while it was waiting, as if it had arrived slightly earlier.
+ * <p>
+ * Published metrics, tagged flight=&lt;name&gt;: "singleflight.calls" with result=executed (the caller ran
+ * the load) or result=shared (the caller reused a running one), whose ratio is the collapse ratio,
+ * and the "singleflight.in.flight" gauge.
+ *
+ * @param <K> the key identifying identical reads; must implement equals and hashCode
+ * @param <V> the type of the result
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final Counter executed;
+    private final Counter shared;
+
+    /**
+     * @param name     the name of the flight, used as the metrics tag
+     * @param enabled  false to run every load, e.g. to measure the effect of coalescing
+     * @param registry where the metrics are published
+     */
+    public SingleFlight(String name, boolean enabled, MeterRegistry registry) {
+        this.enabled = enabled;
+        this.executed = Counter.builder("singleflight.calls")
+                .description("Reads that ran their own load")
+                .tags("flight", name, "result", "executed")
+                .register(registry);
+        this.shared = Counter.builder("singleflight.calls")
+                .description("Reads that shared the result of a load already running")
+                .tags("flight", name, "result", "shared")
+                .register(registry);
+        Gauge.builder("singleflight.in.flight", inFlight, ConcurrentMap::size)
+                .description("Loads currently running")
+                .tags("flight", name)
+                .register(registry);
+    }
+
+    /**
+     * Return the result of the load running for the key, or run the loader if there is none.
+     *
+     * @param key    identifies the read
+     * @param loader runs the read; called at most once per group of concurrent callers
+     * @return the result of the load
+     */
+    public V execute(K key, Supplier<V> loader) {
+        if (!enabled) {
+            executed.increment();
+            return loader.get();
+        }
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            shared.increment();
+            return join(running);
+        }
+        executed.increment();
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Wait for a load run by another caller, rethrowing its exception as is.
+     */
+    private static <V> V join(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
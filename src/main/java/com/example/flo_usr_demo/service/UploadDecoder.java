@@ -0,0 +1,114 @@
+package com.example.flo_usr_demo.service;
+
+import com.example.flo_usr_demo.exception.BadRequestException;
+import com.github.luben.zstd.ZstdInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Opens uploaded files, decompressing gzip and zstd uploads on the fly.
+ * <p>
+ * The format is recognised from the first bytes of the file, so a client can send {@code users.csv.gz}
+ * or {@code users.csv.zst} to any upload endpoint without further notice; other files are read as they are.
+ * The content is decompressed while it is read, a buffer at a time: the decompressed file is never held
+ * in memory nor written anywhere the caller does not write it.
+ */
+@Component
+public class UploadDecoder {
+
+    private static final byte[] GZIP_MAGIC = {0x1f, (byte) 0x8b};
+    private static final byte[] ZSTD_MAGIC = {0x28, (byte) 0xb5, 0x2f, (byte) 0xfd};
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Guards against decompression bombs: a few MB of gzip can expand to many GB. */
+    @Value("${app.upload.max-decompressed-size:10GB}")
+    private DataSize maxDecompressedSize;
+
+    /**
+     * Open an uploaded file.
+     *
+     * @param file the uploaded file, compressed or not
+     * @return the decompressed content; reading it throws {@link BadRequestException} if the compressed
+     * data is corrupt or expands beyond {@code app.upload.max-decompressed-size}
+     * @throws IOException if the upload cannot be read
+     */
+    public InputStream open(MultipartFile file) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(file.getInputStream(), BUFFER_SIZE);
+        try {
+            if (startsWith(in, ZSTD_MAGIC)) {
+                return new Decoded(new ZstdInputStream(in), "zstd", maxDecompressedSize.toBytes());
+            }
+            if (startsWith(in, GZIP_MAGIC)) {
+                return new Decoded(new GZIPInputStream(in, BUFFER_SIZE), "gzip", maxDecompressedSize.toBytes());
+            }
+            return in;
+        } catch (IOException e) {
+            // the header of the compressed stream is unreadable
+            in.close();
+            throw new BadRequestException("Corrupt compressed upload: " + e.getMessage());
+        }
+    }
+
+    private static boolean startsWith(BufferedInputStream in, byte[] magic) throws IOException {
+        in.mark(magic.length);
+        try {
+            byte[] head = in.readNBytes(magic.length);
+            for (int i = 0; i < magic.length; i++) {
+                if (i >= head.length || head[i] != magic[i]) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            in.reset();
+        }
+    }
+
+    /**
+     * Decompressed content: counts the bytes produced against the limit, and reports corrupt
+     * compressed data as a bad request rather than as a failure of the server.
+     */
+    private static final class Decoded extends FilterInputStream {
+
+        private final String format;
+        private final long limit;
+        private long produced;
+
+        Decoded(InputStream decompressed, String format, long limit) {
+            super(decompressed);
+            this.format = format;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n;
+            try {
+                n = in.read(b, off, len);
+            } catch (IOException e) {
+                throw new BadRequestException("Corrupt " + format + " upload: " + e.getMessage());
+            }
+            if (n > 0) {
+                produced += n;
+                if (produced > limit) {
+                    throw new BadRequestException("Upload expands beyond " + limit + " bytes once decompressed");
+                }
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.flo_usr_demo.service;
+
+import com.example.flo_usr_demo.dto.UserDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of {@link UserDto}s by ID, evicting by size and by time since the last write.
+ * <p>
+ * Values are stored already wrapped in an {@link Optional}, so a hit returns the cached instance without
+ * allocating. Only existing users are cached: a miss always goes to the loader.
+ * <p>
+ * A load racing with a write may cache the value read before the write; writes therefore {@link #put}
+ * the new value, which a concurrent load cannot overwrite, and the TTL bounds any remaining staleness.
+ */
+public class UserCache {
+
+    private final Cache<Long, Optional<UserDto>> cache;
+
+    /**
+     * @param maximumSize maximum number of users kept in memory
+     * @param ttl         time after which an entry is evicted, counted from its last write
+     */
+    public UserCache(long maximumSize, Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Return the cached user, or load it and cache it if it exists.
+     *
+     * @param id     the user ID
+     * @param loader reads the user from the database on a miss
+     * @return an Optional containing the user if it exists
+     */
+    public Optional<UserDto> get(Long id, Function<Long, Optional<UserDto>> loader) {
+        Optional<UserDto> cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<UserDto> loaded = loader.apply(id);
+        if (loaded.isPresent()) {
+            Optional<UserDto> raced = cache.asMap().putIfAbsent(id, loaded);
+            if (raced != null) {
+                return raced;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Cache a user just read from the database, unless a write cached it in the meantime.
+     *
+     * @param loaded the user read from the database
+     * @return the cached user: the one written concurrently if any, otherwise {@code loaded}
+     */
+    public UserDto putIfAbsent(UserDto loaded) {
+        Optional<UserDto> raced = cache.asMap().putIfAbsent(loaded.getId(), Optional.of(loaded));
+        return raced != null ? raced.get() : loaded;
+    }
+
+    /**
+     * Return the cached user without loading it.
+     *
+     * @param id the user ID
+     * @return the cached user, or null on a miss
+     */
+    public UserDto getIfPresent(Long id) {
+        Optional<UserDto> cached = cache.getIfPresent(id);
+        return cached != null ? cached.get() : null;
+    }
+
+    /**
+     * Cache the current state of a user, replacing any previous entry.
+     *
+     * @param dto the user just written
+     */
+    public void put(UserDto dto) {
+        cache.put(dto.getId(), Optional.of(dto));
+    }
+
+    /**
+     * Drop a user from the cache.
+     *
+     * @param id the user ID
+     */
+    public void evict(Long id) {
+        cache.invalidate(id);
+    }
+
+    /**
+     * Drop several users from the cache.
+     *
+     * @param ids the user IDs
+     */
+    public void evictAll(Collection<Long> ids) {
+        cache.invalidateAll(ids);
+    }
+
+    /** Drop every entry. */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /** @return the underlying Caffeine cache, for metrics registration */
+    public Cache<Long, Optional<UserDto>> nativeCache() {
+        return cache;
+    }
+}
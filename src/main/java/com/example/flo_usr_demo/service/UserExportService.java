@@ -0,0 +1,120 @@
+package com.example.flo_usr_demo.service;
+
+import com.example.flo_usr_demo.dto.UserDto;
+import com.example.flo_usr_demo.repository.UserJdbcRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.opencsv.CSVWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Service exporting the whole users table as a stream.
+ * Rows are written to the output as they are read from the database cursor,
+ * so heap usage does not grow with the size of the table.
+ */
+@Service
+public class UserExportService {
+
+    /** Header of the CSV export, in the column order expected by the CSV import. */
+    private static final String[] CSV_HEADER = {"firstName", "lastName", "email", "address"};
+
+    @Autowired
+    private UserJdbcRepository jdbcRepo;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cbor;
+
+    /**
+     * Write all users as newline-delimited JSON, one {@link UserDto} per line.
+     *
+     * @param out the destination stream; it is flushed but not closed
+     * @throws IOException if writing to the stream fails
+     */
+    @Transactional(readOnly = true)
+    public void writeNdjson(OutputStream out) throws IOException {
+        writeSequence(mapper.writer().withRootValueSeparator("\n"), out);
+    }
+
+    /**
+     * Write all users as a CBOR sequence (RFC 8742): one CBOR-encoded {@link UserDto} after the other,
+     * with no separator as each item carries its own length.
+     *
+     * @param out the destination stream; it is flushed but not closed
+     * @throws IOException if writing to the stream fails
+     */
+    @Transactional(readOnly = true)
+    public void writeCborSeq(OutputStream out) throws IOException {
+        writeSequence(cbor.getObjectMapper().writer(), out);
+    }
+
+    private void writeSequence(ObjectWriter items, OutputStream out) throws IOException {
+        try (SequenceWriter writer = items.writeValues(nonClosing(out))) {
+            jdbcRepo.forEach(dto -> {
+                try {
+                    writer.write(dto);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    /**
+     * Write all users as CSV with a header line, in the format accepted by the CSV import.
+     *
+     * @param out the destination stream; it is flushed but not closed
+     * @throws IOException if writing to the stream fails
+     */
+    @Transactional(readOnly = true)
+    public void writeCsv(OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(nonClosing(out), StandardCharsets.UTF_8);
+        try (CSVWriter csv = new CSVWriter(writer)) {
+            csv.writeNext(CSV_HEADER, false);
+            jdbcRepo.forEach(dto -> csv.writeNext(new String[]{
+                    dto.getFirstName(),
+                    dto.getLastName(),
+                    dto.getEmail(),
+                    dto.getAddress()
+            }, false));
+            if (csv.checkError()) {
+                throw new IOException("Failed to write CSV export");
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * The servlet container owns the response stream; writers wrapping it must not close it.
+     */
+    private static OutputStream nonClosing(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+}
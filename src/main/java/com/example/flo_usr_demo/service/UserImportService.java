@@ -0,0 +1,239 @@
+package com.example.flo_usr_demo.service;
+
+import com.example.flo_usr_demo.dto.ImportSummaryDto;
+import com.example.flo_usr_demo.dto.RowErrorDto;
+import com.example.flo_usr_demo.dto.UpsertSummaryDto;
+import com.example.flo_usr_demo.dto.UserCreateDto;
+import com.example.flo_usr_demo.repository.UserJdbcRepository;
+import com.example.flo_usr_demo.repository.UserJdbcRepository.UpsertResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service importing users from CSV in a streaming fashion.
+ * Rows are parsed one at a time and flushed to the database in bounded chunks,
+ * so memory usage does not depend on the size of the file.
+ */
+@Service
+public class UserImportService {
+
+    @Autowired
+    private UserJdbcRepository jdbcRepo;
+
+    @Autowired
+    private UserCache cache;
+
+    @Autowired
+    private ClusterCacheInvalidator invalidator;
+
+    @Autowired
+    private UserRowValidator rowValidator;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    /** Maximum number of validation errors returned with an import summary, to bound its size on very dirty files. */
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    @Value("${app.import.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * Import users from a CSV source.
+     * Expects a header line followed by columns: firstName,lastName,email,address.
+     * Each chunk is validated by the {@link UserRowValidator} before it is inserted: rows breaking the
+     * constraints of {@link UserCreateDto}, rows with fewer than 4 columns, emails appearing earlier in the file
+     * and emails that already exist are counted as rejected. The first {@value #MAX_REPORTED_ERRORS} validation
+     * errors are returned with the summary.
+     *
+     * @param source the CSV content
+     * @return a summary with the number of accepted and rejected rows, the validation errors and the elapsed time
+     * @throws IOException            if the source cannot be read
+     * @throws CsvValidationException if the source is not valid CSV
+     */
+    public ImportSummaryDto importCsv(Reader source) throws IOException, CsvValidationException {
+        long start = System.nanoTime();
+        UserRowValidator.Session session = rowValidator.newSession();
+        long[] counts = new long[2]; // accepted, rejected
+        List<RowErrorDto> errors = new ArrayList<>();
+        long firstRow = 1;
+        List<String[]> chunk = new ArrayList<>(chunkSize);
+
+        try (CSVReader csv = new CSVReader(source)) {
+            String[] line;
+
+            //avoid headers
+            csv.readNext();
+
+            while ((line = csv.readNext()) != null) {
+                chunk.add(line);
+                if (chunk.size() >= chunkSize) {
+                    insertChunk(session.validate(firstRow, chunk), chunk.size(), counts, errors);
+                    firstRow += chunk.size();
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                insertChunk(session.validate(firstRow, chunk), chunk.size(), counts, errors);
+            }
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return new ImportSummaryDto(counts[0], counts[1], errors, elapsedMillis);
+    }
+
+    private void insertChunk(UserRowValidator.Result result, int rows, long[] counts, List<RowErrorDto> errors) {
+        report(result, errors);
+        int ok = result.valid().isEmpty() ? 0 : jdbcRepo.insertBatch(result.valid());
+        counts[0] += ok;
+        counts[1] += rows - ok;
+    }
+
+    /**
+     * Insert or update users from a CSV source, matching existing users by email.
+     * Expects the same columns and applies the same validation as {@link #importCsv}: an email appearing earlier
+     * in the file is rejected, so the first row for an email is the one written. Existing users are only written
+     * when a value changes.
+     *
+     * @param source the CSV content
+     * @return a summary with the number of inserted, updated, unchanged and rejected rows, the validation errors
+     * and the elapsed time
+     * @throws IOException            if the source cannot be read
+     * @throws CsvValidationException if the source is not valid CSV
+     */
+    public UpsertSummaryDto upsertCsv(Reader source) throws IOException, CsvValidationException {
+        long start = System.nanoTime();
+        UserRowValidator.Session session = rowValidator.newSession();
+        long[] counts = new long[4]; // inserted, updated, unchanged, rejected
+        List<RowErrorDto> errors = new ArrayList<>();
+        long firstRow = 1;
+        List<String[]> chunk = new ArrayList<>(chunkSize);
+
+        try (CSVReader csv = new CSVReader(source)) {
+            String[] line;
+
+            //avoid headers
+            csv.readNext();
+
+            while ((line = csv.readNext()) != null) {
+                chunk.add(line);
+                if (chunk.size() >= chunkSize) {
+                    upsertChunk(session.validate(firstRow, chunk), chunk.size(), counts, errors);
+                    firstRow += chunk.size();
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                upsertChunk(session.validate(firstRow, chunk), chunk.size(), counts, errors);
+            }
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return new UpsertSummaryDto(counts[0], counts[1], counts[2], counts[3], errors, elapsedMillis);
+    }
+
+    private void upsertChunk(UserRowValidator.Result result, int rows, long[] counts, List<RowErrorDto> errors) {
+        report(result, errors);
+        List<UserCreateDto> valid = result.valid();
+        counts[3] += rows - valid.size();
+        if (valid.isEmpty()) {
+            return;
+        }
+        UpsertResult written = jdbcRepo.upsertBatch(valid);
+        int updated = written.updatedIds().size();
+        counts[0] += written.inserted();
+        counts[1] += updated;
+        counts[2] += valid.size() - written.inserted() - updated;
+        if (updated > 0) {
+            cache.evictAll(written.updatedIds());
+            invalidator.publish(written.updatedIds());
+        }
+    }
+
+    /**
+     * Keep the errors of a validated chunk for the summary, up to {@value #MAX_REPORTED_ERRORS}.
+     */
+    private static void report(UserRowValidator.Result result, List<RowErrorDto> errors) {
+        for (RowErrorDto error : result.errors()) {
+            if (errors.size() >= MAX_REPORTED_ERRORS) {
+                return;
+            }
+            errors.add(error);
+        }
+    }
+
+    /**
+     * Check a CSV source without importing anything.
+     * Expects the same columns as {@link #importCsv}. Rows are validated chunk by chunk against the constraints
+     * of {@link UserCreateDto}, and an email already seen earlier in the file is an error too.
+     * Errors are written as newline-delimited JSON, one {@link RowErrorDto} per line, as soon as their chunk
+     * is validated; a source that is not valid CSV ends the report with an error for the unreadable row.
+     *
+     * @param source the CSV content
+     * @param out    the destination of the report; it is flushed but not closed
+     * @return the number of rejected rows
+     * @throws IOException if the source cannot be read or the report cannot be written
+     */
+    public long validateCsv(Reader source, OutputStream out) throws IOException {
+        UserRowValidator.Session session = rowValidator.newSession();
+        long rejected = 0;
+        long firstRow = 1;
+        List<String[]> chunk = new ArrayList<>(chunkSize);
+
+        try (CSVReader csv = new CSVReader(source)) {
+            try {
+                //avoid headers
+                csv.readNext();
+
+                String[] line;
+                while ((line = csv.readNext()) != null) {
+                    chunk.add(line);
+                    if (chunk.size() >= chunkSize) {
+                        rejected += writeErrors(session.validate(firstRow, chunk), out);
+                        firstRow += chunk.size();
+                        chunk.clear();
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    rejected += writeErrors(session.validate(firstRow, chunk), out);
+                }
+            } catch (CsvValidationException e) {
+                if (!chunk.isEmpty()) {
+                    rejected += writeErrors(session.validate(firstRow, chunk), out);
+                }
+                writeError(new RowErrorDto(firstRow + chunk.size(), null, "Malformed CSV: " + e.getMessage()), out);
+                out.flush();
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * Write the errors of a validated chunk to the report and flush it, so the client sees them right away.
+     *
+     * @return the number of rows with at least one error
+     */
+    private long writeErrors(UserRowValidator.Result result, OutputStream out) throws IOException {
+        for (RowErrorDto error : result.errors()) {
+            writeError(error, out);
+        }
+        out.flush();
+        return result.errors().stream().mapToLong(RowErrorDto::getRow).distinct().count();
+    }
+
+    private void writeError(RowErrorDto error, OutputStream out) throws IOException {
+        out.write(mapper.writeValueAsBytes(error));
+        out.write('\n');
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.flo_usr_demo.service;
+
+import com.example.flo_usr_demo.dto.RowErrorDto;
+import com.example.flo_usr_demo.dto.UserCreateDto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Validation stage of CSV imports: checks raw rows against the constraints declared on {@link UserCreateDto}
+ * and rejects emails already seen earlier in the same file, before any database work, so that bad rows
+ * cost CPU only instead of a failed or rolled-back write.
+ * <p>
+ * The rows of a chunk are validated in parallel on the common fork-join pool; duplicates are then detected
+ * sequentially in file order, so the first occurrence of an email is the one kept.
+ */
+@Component
+public class UserRowValidator {
+
+    /** Below this many rows a chunk is validated on the calling thread, splitting it would cost more. */
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    @Autowired
+    private Validator validator;
+
+    /**
+     * Rows of a chunk that passed validation, and the errors of the others ordered by row.
+     *
+     * @param valid  the DTOs built from the valid rows, in file order
+     * @param errors one or more errors per rejected row
+     */
+    public record Result(List<UserCreateDto> valid, List<RowErrorDto> errors) {
+    }
+
+    /**
+     * Start validating a file. The session remembers the emails seen so far, so the chunks of a file
+     * must all go through the same session, in order.
+     *
+     * @return a new session
+     */
+    public Session newSession() {
+        return new Session();
+    }
+
+    /**
+     * Validation state of one file. Not thread-safe: chunks are validated one after the other,
+     * the parallelism is within a chunk.
+     */
+    public final class Session {
+
+        private final EmailHashSet emails = new EmailHashSet();
+
+        private Session() {
+        }
+
+        /**
+         * Validate consecutive rows of the file.
+         *
+         * @param firstRow 1-based data row number of the first row, used in the errors
+         * @param rows     the parsed columns: firstName, lastName, email, address; null for a row that is not
+         *                 valid CSV (see {@link MappedCsvParser})
+         * @return the valid rows and the errors of the others
+         */
+        public Result validate(long firstRow, List<String[]> rows) {
+            IntStream indexes = IntStream.range(0, rows.size());
+            if (rows.size() >= PARALLEL_THRESHOLD) {
+                indexes = indexes.parallel();
+            }
+            List<Checked> checked = indexes
+                    .mapToObj(i -> check(firstRow + i, rows.get(i)))
+                    .toList();
+
+            List<UserCreateDto> valid = new ArrayList<>(rows.size());
+            List<RowErrorDto> errors = new ArrayList<>();
+            for (Checked row : checked) {
+                if (!row.errors().isEmpty()) {
+                    errors.addAll(row.errors());
+                } else if (!emails.add(row.dto().getEmail())) {
+                    errors.add(new RowErrorDto(row.row(), "email", "Email appears earlier in the file"));
+                } else {
+                    valid.add(row.dto());
+                }
+            }
+            return new Result(valid, errors);
+        }
+    }
+
+    private record Checked(long row, UserCreateDto dto, List<RowErrorDto> errors) {
+    }
+
+    private Checked check(long row, String[] line) {
+        if (line == null) {
+            return new Checked(row, null,
+                    List.of(new RowErrorDto(row, null, "Malformed CSV: quote inside an unquoted field")));
+        }
+        if (line.length < 4) {
+            return new Checked(row, null,
+                    List.of(new RowErrorDto(row, null, "expected 4 columns but found " + line.length)));
+        }
+        UserCreateDto dto = new UserCreateDto(line[0], line[1], line[2], line[3]);
+        List<RowErrorDto> errors = validator.validate(dto).stream()
+                // violations come out of a hash set: sort them to get a stable report
+                .sorted(Comparator.comparing((ConstraintViolation<UserCreateDto> v) -> v.getPropertyPath().toString())
+                        .thenComparing(ConstraintViolation::getMessage))
+                .map(v -> new RowErrorDto(row, v.getPropertyPath().toString(), v.getMessage()))
+                .toList();
+        return new Checked(row, dto, errors);
+    }
+}
@@ -1,21 +1,46 @@
 package com.example.flo_usr_demo.service;
 
+import com.example.flo_usr_demo.dto.CursorPage;
+import com.example.flo_usr_demo.dto.UserBatchDto;
 import com.example.flo_usr_demo.dto.UserCreateDto;
 import com.example.flo_usr_demo.dto.UserDto;
+import com.example.flo_usr_demo.dto.UserPatchDto;
+import com.example.flo_usr_demo.exception.BadRequestException;
 import com.example.flo_usr_demo.exception.NotFoundException;
+import com.example.flo_usr_demo.exception.PreconditionFailedException;
 import com.example.flo_usr_demo.mapper.UserMapper;
 import com.example.flo_usr_demo.model.User;
+import com.example.flo_usr_demo.repository.UserJdbcRepository;
+import com.example.flo_usr_demo.repository.UserJdbcRepository.RankedUser;
 import com.example.flo_usr_demo.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
  * Service layer for managing {@link User} entities and converting between entities and DTOs.
+ * Lookups by ID go through the {@link UserCache}; every write keeps it up to date,
+ * and updates and deletes are broadcast to the other nodes by the {@link ClusterCacheInvalidator}.
+ * Concurrent identical reads (cache misses, search pages) share one database query through a {@link SingleFlight}.
+ * <p>
+ * Reads run in read-only transactions, either declared here or those of the repositories, and are therefore
+ * served by a read replica when one is configured (see {@code DataSourceConfig}); writes, and the reads they
+ * depend on, run in read-write transactions on the primary.
  */
 @Service
 public class UserService {
@@ -23,6 +48,30 @@ public class UserService {
     @Autowired
     private UserRepository repo;
 
+    @Autowired
+    private UserJdbcRepository jdbcRepo;
+
+    @Autowired
+    private UserCache cache;
+
+    @Autowired
+    private ClusterCacheInvalidator invalidator;
+
+    @Autowired
+    private SingleFlight<Long, Optional<UserDto>> userLoads;
+
+    @Autowired
+    private SingleFlight<List<Object>, CursorPage<UserDto>> userSearches;
+
+    @Value("${app.pagination.default-size:100}")
+    private int defaultPageSize;
+
+    @Value("${app.pagination.max-size:1000}")
+    private int maxPageSize;
+
+    @Value("${app.batch-get.max-size:1000}")
+    private int maxBatchSize;
+
     /**
      * Create a new User from a DTO.
      *
@@ -32,7 +81,9 @@ public class UserService {
     public UserDto create(UserCreateDto dto) {
         User entity = UserMapper.toEntity(dto);
         User saved = repo.save(entity);
-        return UserMapper.toDto(saved);
+        UserDto created = UserMapper.toDto(saved);
+        cacheAfterCommit(created);
+        return created;
     }
 
     /**
@@ -43,15 +94,105 @@ public class UserService {
      * @return the updated User as a DTO
      * @throws NotFoundException if no User with the given ID is found
      */
+    @Transactional
     public UserDto update(Long id, UserCreateDto dto) {
+        return update(id, dto, null);
+    }
+
+    /**
+     * Update an existing User with values from a DTO, provided it is still at the expected version.
+     * The check is repeated by the database (JPA @Version), so an update racing with this one
+     * fails with an OptimisticLockingFailureException instead of being overwritten.
+     *
+     * @param id              the ID of the User to update
+     * @param dto             the DTO carrying updated values
+     * @param expectedVersion the version the client last read, or null to update unconditionally
+     * @return the updated User as a DTO
+     * @throws NotFoundException           if no User with the given ID is found
+     * @throws PreconditionFailedException if the User is no longer at the expected version
+     */
+    @Transactional
+    public UserDto update(Long id, UserCreateDto dto, Long expectedVersion) {
         User existing = repo.findById(id)
                 .orElseThrow(() -> new NotFoundException("User not found with id: " + id));
+        if (expectedVersion != null && !expectedVersion.equals(existing.getVersion())) {
+            throw versionMismatch(id, existing.getVersion(), expectedVersion);
+        }
         existing.setFirstName(dto.getFirstName());
         existing.setLastName(dto.getLastName());
         existing.setEmail(dto.getEmail());
         existing.setAddress(dto.getAddress());
-        User saved = repo.save(existing);
-        return UserMapper.toDto(saved);
+        // flushed now so that the DTO carries the incremented version
+        User saved = repo.saveAndFlush(existing);
+        UserDto updated = UserMapper.toDto(saved);
+        cacheAfterCommit(updated);
+        invalidator.publish(List.of(id));
+        return updated;
+    }
+
+    /**
+     * Change only the fields set in the patch, with a single UPDATE and no prior read.
+     * An empty patch changes nothing and returns the current user.
+     *
+     * @param id    the ID of the User to update
+     * @param patch the fields to change
+     * @return the updated User as a DTO
+     * @throws NotFoundException if no User with the given ID is found
+     */
+    public UserDto patch(Long id, UserPatchDto patch) {
+        return patch(id, patch, null);
+    }
+
+    /**
+     * Change only the fields set in the patch, provided the User is still at the expected version.
+     * The version is checked by the UPDATE itself, so a write racing with this one cannot be overwritten.
+     *
+     * @param id              the ID of the User to update
+     * @param patch           the fields to change
+     * @param expectedVersion the version the client last read, or null to update unconditionally
+     * @return the updated User as a DTO
+     * @throws NotFoundException           if no User with the given ID is found
+     * @throws PreconditionFailedException if the User is no longer at the expected version
+     */
+    public UserDto patch(Long id, UserPatchDto patch, Long expectedVersion) {
+        if (patch.isEmpty()) {
+            UserDto current = get(id).orElseThrow(() -> new NotFoundException("User not found with id: " + id));
+            if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                throw versionMismatch(id, current.getVersion(), expectedVersion);
+            }
+            return current;
+        }
+        Optional<UserDto> patched = jdbcRepo.patch(id, patch, expectedVersion);
+        if (patched.isEmpty()) {
+            Long version = jdbcRepo.findVersion(id)
+                    .orElseThrow(() -> new NotFoundException("User not found with id: " + id));
+            throw versionMismatch(id, version, expectedVersion);
+        }
+        UserDto updated = patched.get();
+        cacheAfterCommit(updated);
+        invalidator.publish(List.of(id));
+        return updated;
+    }
+
+    private static PreconditionFailedException versionMismatch(Long id, Long version, Long expectedVersion) {
+        return new PreconditionFailedException("User " + id + " is at version " + version + ", not " + expectedVersion);
+    }
+
+    /**
+     * Cache a user just written. Inside a transaction the entry is only put once it commits,
+     * so that the cache never serves a row that was rolled back, nor one other transactions cannot see yet.
+     */
+    private void cacheAfterCommit(UserDto written) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.put(written);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.put(written);
+            }
+        });
     }
 
     /**
@@ -61,18 +202,65 @@ public class UserService {
      */
     public void delete(Long id) {
         repo.deleteById(id);
+        cache.evict(id);
+        invalidator.publish(List.of(id));
     }
 
     /**
-     * Retrieve a User by its ID.
+     * Retrieve a User by its ID, from the cache when possible.
      * If the User is not found, an empty Optional is returned.
-     * If the User is found, map method maps it with the method UserMapper.toDto and returns an Optional containing the User DTO.
+     * On a cache miss the User is loaded from the primary, never from a read replica, and cached;
+     * concurrent misses for the same ID share one load.
      *
      * @param id the ID of the User
      * @return an Optional containing the User DTO if found
      */
     public Optional<UserDto> get(Long id) {
-        return repo.findById(id).map(UserMapper::toDto);
+        return cache.get(id, key -> userLoads.execute(key, () -> jdbcRepo.findById(key)));
+    }
+
+    /**
+     * Retrieve several Users by ID: cached users are served from the {@link UserCache},
+     * all the others are loaded from the primary with a single query and cached.
+     *
+     * @param ids the IDs to look up; duplicates are returned once
+     * @return the users found, in the order of their first appearance in {@code ids}, and the IDs not found
+     * @throws BadRequestException if the IDs are missing, contain null or exceed the configured maximum
+     */
+    public UserBatchDto getAll(List<Long> ids) {
+        if (ids == null || ids.stream().anyMatch(Objects::isNull)) {
+            throw new BadRequestException("ids must be a list of user IDs");
+        }
+        LinkedHashSet<Long> requested = new LinkedHashSet<>(ids);
+        if (requested.size() > maxBatchSize) {
+            throw new BadRequestException("At most " + maxBatchSize + " ids can be requested at once");
+        }
+
+        Map<Long, UserDto> found = new HashMap<>(requested.size() * 2);
+        List<Long> misses = new ArrayList<>();
+        for (Long id : requested) {
+            UserDto cached = cache.getIfPresent(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        for (UserDto loaded : jdbcRepo.findAllById(misses)) {
+            found.put(loaded.getId(), cache.putIfAbsent(loaded));
+        }
+
+        List<UserDto> users = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            UserDto user = found.get(id);
+            if (user != null) {
+                users.add(user);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new UserBatchDto(users, missing);
     }
 
     /**
@@ -81,6 +269,7 @@ public class UserService {
      *
      * @return a List of User DTOs
      */
+    @Transactional(readOnly = true)
     public List<UserDto> listAll() {
         return repo.findAll()
                 .stream()
@@ -95,6 +284,7 @@ public class UserService {
      * @param lastName  optional last name fragment
      * @return a List of matching User DTOs
      */
+    @Transactional(readOnly = true)
     public List<UserDto> search(String firstName, String lastName) {
         List<User> results;
         if (firstName != null && lastName != null) {
@@ -111,6 +301,38 @@ public class UserService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Search Users by first and/or last name (case-insensitive, partial match), one page at a time.
+     * Uses keyset pagination, so the cost of a page does not depend on how deep the client has paged.
+     * Concurrent requests for the same page share one query.
+     *
+     * @param firstName optional first name fragment
+     * @param lastName  optional last name fragment
+     * @param cursor    the cursor returned with the previous page, or null for the first page
+     * @param limit     the requested page size, or null for the default; capped to the configured maximum
+     * @return a page of matching User DTOs ordered by ID
+     * @throws BadRequestException if the cursor or the limit is invalid
+     */
+    public CursorPage<UserDto> searchPage(String firstName, String lastName, String cursor, Integer limit) {
+        long afterId = PageCursor.decode(cursor);
+        int size = pageSize(limit);
+        // fetch one extra row to know whether there is a next page
+        int fetch = size + 1;
+        return userSearches.execute(Arrays.asList("name", firstName, lastName, afterId, size), () -> {
+            List<User> results;
+            if (firstName != null && lastName != null) {
+                results = repo.searchByFullName(firstName, lastName, afterId, fetch);
+            } else if (firstName != null) {
+                results = repo.searchByFirstName(firstName, afterId, fetch);
+            } else if (lastName != null) {
+                results = repo.searchByLastName(lastName, afterId, fetch);
+            } else {
+                results = repo.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(fetch));
+            }
+            return toPage(results, size);
+        });
+    }
+
     /**
      * Bulk save Users from a list of DTOs (useful for CSV import).
      *
@@ -123,20 +345,124 @@ public class UserService {
                 .map(UserMapper::toEntity)
                 .collect(Collectors.toList());
         List<User> saved = repo.saveAll(entities);
+        cache.evictAll(saved.stream().map(User::getId).toList());
         return saved.stream()
                 .map(UserMapper::toDto)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Retrieve all users whose email ends with the given domain.
+     * Retrieve all users whose email belongs to the given domain.
      *
-     * @param domain the domain to filter by (e.g., "@gmail.com")
+     * @param domain the domain to filter by (e.g., "gmail.com"; a leading "@" or "%@" is tolerated)
      * @return list of matching UserDto
+     * @throws BadRequestException if the domain is blank
      */
+    @Transactional(readOnly = true)
     public List<UserDto> getUsersByEmailDomain(String domain) {
-        return repo.findByEmailDomain(domain).stream()
+        return repo.findByEmailDomain(normalizeDomain(domain)).stream()
+                .map(UserMapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Retrieve users whose email belongs to the given domain, one page at a time.
+     *
+     * @param domain the domain to filter by (e.g., "gmail.com"; a leading "@" or "%@" is tolerated)
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit  the requested page size, or null for the default; capped to the configured maximum
+     * @return a page of matching User DTOs ordered by ID
+     * @throws BadRequestException if the domain is blank, or the cursor or the limit is invalid
+     */
+    public CursorPage<UserDto> getUsersByEmailDomainPage(String domain, String cursor, Integer limit) {
+        String normalized = normalizeDomain(domain);
+        long afterId = PageCursor.decode(cursor);
+        int size = pageSize(limit);
+        return userSearches.execute(Arrays.asList("domain", normalized, afterId, size),
+                () -> toPage(repo.findByEmailDomainAfter(normalized, afterId, size + 1), size));
+    }
+
+    /**
+     * Search users by words in their names, email or address, best matches first, one page at a time.
+     * Names weigh more than the email, and the email more than the address. The query uses the web search
+     * syntax: words are ANDed, and "quoted phrases", OR and -excluded words are supported.
+     * Concurrent requests for the same page share one query.
+     *
+     * @param query  the free-text query
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit  the requested page size, or null for the default; capped to the configured maximum
+     * @return a page of matching User DTOs ordered by descending relevance, then by ID
+     * @throws BadRequestException if the query is blank, or the cursor or the limit is invalid
+     */
+    public CursorPage<UserDto> searchTextPage(String query, String cursor, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("q must not be blank");
+        }
+        String q = query.trim();
+        PageCursor.Ranked after = PageCursor.decodeRanked(cursor);
+        int size = pageSize(limit);
+        return userSearches.execute(Arrays.asList("text", q, after, size), () -> {
+            List<RankedUser> rows = jdbcRepo.searchText(q, after, size + 1);
+            boolean hasMore = rows.size() > size;
+            List<RankedUser> page = hasMore ? rows.subList(0, size) : rows;
+            List<UserDto> items = page.stream()
+                    .map(RankedUser::user)
+                    .collect(Collectors.toList());
+            String nextCursor = null;
+            if (hasMore) {
+                RankedUser last = page.get(size - 1);
+                nextCursor = PageCursor.encodeRanked(new PageCursor.Ranked(last.rank(), last.user().getId()));
+            }
+            return new CursorPage<>(items, nextCursor);
+        });
+    }
+
+    /**
+     * Bring a domain to the form stored in the email_domain column.
+     * Older clients sent LIKE patterns such as "%@gmail.com", so a leading "%" and "@" are stripped.
+     *
+     * @param domain the domain as sent by the client
+     * @return the lower-cased bare domain
+     * @throws BadRequestException if nothing is left once the prefix is stripped
+     */
+    static String normalizeDomain(String domain) {
+        String d = domain == null ? "" : domain.trim();
+        if (d.startsWith("%")) {
+            d = d.substring(1);
+        }
+        if (d.startsWith("@")) {
+            d = d.substring(1);
+        }
+        if (d.isEmpty()) {
+            throw new BadRequestException("domain must not be blank");
+        }
+        return d.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Resolve the page size requested by a client.
+     *
+     * @param requested the requested size, or null for the default
+     * @return the page size, never above the configured maximum
+     */
+    private int pageSize(Integer requested) {
+        return PageCursor.pageSize(requested, defaultPageSize, maxPageSize);
+    }
+
+    /**
+     * Build a page from rows fetched with one extra element beyond the page size.
+     *
+     * @param rows the fetched rows, ordered by ID
+     * @param size the page size
+     * @return the page, with a next cursor if more rows were available
+     */
+    private static CursorPage<UserDto> toPage(List<User> rows, int size) {
+        boolean hasMore = rows.size() > size;
+        List<User> page = hasMore ? rows.subList(0, size) : rows;
+        List<UserDto> items = page.stream()
                 .map(UserMapper::toDto)
                 .collect(Collectors.toList());
+        String nextCursor = hasMore ? PageCursor.encode(page.get(size - 1).getId()) : null;
+        return new CursorPage<>(items, nextCursor);
     }
 }
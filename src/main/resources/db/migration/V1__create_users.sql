@@ -1,13 +1,10 @@
--- scripts/schema.sql
--- Create the users table in the flo_usr_demo database
+-- Baseline: the users table as created by db/init/schema.sql.
+-- Databases created before Flyway was introduced are baselined at this version.
 
-DROP TABLE IF EXISTS users;
-
-CREATE TABLE users (
+CREATE TABLE IF NOT EXISTS users (
                        id         SERIAL PRIMARY KEY,
                        first_name VARCHAR(100) NOT NULL,
                        last_name  VARCHAR(100) NOT NULL,
                        email      VARCHAR(150) NOT NULL UNIQUE,
                        address    VARCHAR(255)
 );
-
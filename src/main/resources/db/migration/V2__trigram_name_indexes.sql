@@ -0,0 +1,7 @@
+-- Trigram GIN indexes so that substring searches on first/last name
+-- (first_name ILIKE '%fragment%') use an index instead of a sequential scan.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS users_first_name_trgm_idx ON users USING gin (first_name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS users_last_name_trgm_idx  ON users USING gin (last_name gin_trgm_ops);
@@ -0,0 +1,9 @@
+-- Lower-cased domain part of the email, maintained by the database on every write,
+-- so that domain lookups are an index range scan instead of a suffix ILIKE over the whole table.
+-- The index also covers id so that keyset pages (email_domain = ? AND id > ? ORDER BY id) need no sort.
+
+ALTER TABLE users
+    ADD COLUMN IF NOT EXISTS email_domain VARCHAR(150)
+        GENERATED ALWAYS AS (lower(substring(email FROM '@([^@]*)$'))) STORED;
+
+CREATE INDEX IF NOT EXISTS users_email_domain_idx ON users (email_domain, id);
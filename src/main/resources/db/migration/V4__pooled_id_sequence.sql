@@ -0,0 +1,11 @@
+-- Pooled ID allocation: each nextval() reserves a block of 50 IDs, so Hibernate needs one database call
+-- per 50 new users instead of one per row (IDENTITY), and JPA inserts can be sent as JDBC batches.
+-- A sequence value v stands for the block (v - 49 .. v): Hibernate's pooled optimizer and the bulk
+-- inserts of UserJdbcRepository use the whole block, a plain INSERT relying on the column DEFAULT uses v.
+
+-- bigint, because a plain INSERT now consumes a block of 50 IDs
+ALTER TABLE users ALTER COLUMN id TYPE bigint;
+ALTER SEQUENCE users_id_seq AS bigint INCREMENT BY 50;
+
+-- existing IDs are kept: the first block starts right after the highest one
+SELECT setval('users_id_seq', COALESCE((SELECT max(id) FROM users), 0) + 50, false);
@@ -0,0 +1,4 @@
+-- Optimistic locking: every write increments version, exposed to clients as the ETag of the user.
+-- JPA checks it through @Version, the JDBC bulk and partial updates increment it explicitly.
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,16 @@
+-- Full-text search over names, email and address (/api/users/search/text), maintained by the database
+-- on every write and indexed with GIN, so free-text queries do not scan the table.
+-- The 'simple' configuration does no stemming and drops no stop words, which suits names, emails and
+-- street names in any language. Names weigh most, then the email, then the address, so that ts_rank
+-- puts name matches first. The email is indexed whole and split on '@' and '.', so that "rossi" or
+-- "example" also match alice.rossi@example.com.
+
+ALTER TABLE users
+    ADD COLUMN IF NOT EXISTS search_vector tsvector
+        GENERATED ALWAYS AS (
+            setweight(to_tsvector('simple', coalesce(first_name, '') || ' ' || coalesce(last_name, '')), 'A') ||
+            setweight(to_tsvector('simple', coalesce(email, '') || ' ' || translate(coalesce(email, ''), '@.', '  ')), 'B') ||
+            setweight(to_tsvector('simple', coalesce(address, '')), 'C')
+        ) STORED;
+
+CREATE INDEX IF NOT EXISTS users_search_vector_idx ON users USING gin (search_vector);
@@ -0,0 +1,12 @@
+-- Progress of asynchronous CSV imports, committed together with each chunk of inserted users, so that
+-- an import interrupted by a restart, a failure or a cancellation resumes after the last committed chunk
+-- when the same file (same SHA-256) is submitted again.
+
+CREATE TABLE IF NOT EXISTS import_checkpoints (
+    file_hash   CHAR(64)     PRIMARY KEY,           -- SHA-256 of the uploaded file, hex
+    file_name   VARCHAR(255),
+    byte_offset BIGINT       NOT NULL,              -- start of the first row not committed yet
+    rows_done   BIGINT       NOT NULL,              -- data rows before byte_offset
+    completed   BOOLEAN      NOT NULL DEFAULT false,
+    updated_at  TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
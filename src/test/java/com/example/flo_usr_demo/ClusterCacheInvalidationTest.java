@@ -0,0 +1,81 @@
+package com.example.flo_usr_demo;
+
+import com.example.flo_usr_demo.dto.UserCreateDto;
+import com.example.flo_usr_demo.dto.UserDto;
+import com.example.flo_usr_demo.service.UserCache;
+import com.example.flo_usr_demo.service.UserService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Multi-node test of the LISTEN/NOTIFY cache invalidation.
+ * Starts two application contexts against the local PostgreSQL of the test profile and checks that
+ * a write on one node evicts the entry cached by the other.
+ */
+class ClusterCacheInvalidationTest {
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) nodeB.close();
+        if (nodeA != null) nodeA.close();
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(FloUsrDemoApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .run();
+    }
+
+    @Test
+    void update_onOneNode_evictsCachedUserOnTheOther() throws Exception {
+        UserService svcA = nodeA.getBean(UserService.class);
+        UserService svcB = nodeB.getBean(UserService.class);
+        UserCache cacheB = nodeB.getBean(UserCache.class);
+
+        UserDto created = svcA.create(new UserCreateDto("Node", "Original", "node.update@example.com", null));
+        UserDto original = svcB.get(created.getId()).orElseThrow();
+        assertThat(cacheB.getIfPresent(created.getId())).isEqualTo(original);
+
+        svcA.update(created.getId(), new UserCreateDto("Node", "Changed", "node.update@example.com", null));
+
+        for (int i = 0; i < 50 && cacheB.getIfPresent(created.getId()) != null; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(cacheB.getIfPresent(created.getId())).isNull();
+        assertThat(svcB.get(created.getId())).map(UserDto::getLastName).contains("Changed");
+        svcA.delete(created.getId());
+    }
+
+    @Test
+    void delete_onOneNode_evictsCachedUserOnTheOther() throws Exception {
+        UserService svcA = nodeA.getBean(UserService.class);
+        UserService svcB = nodeB.getBean(UserService.class);
+        UserCache cacheB = nodeB.getBean(UserCache.class);
+
+        UserDto created = svcA.create(new UserCreateDto("Node", "Test", "node.delete@example.com", null));
+        assertThat(svcB.get(created.getId())).isPresent();
+
+        svcA.delete(created.getId());
+
+        for (int i = 0; i < 50 && cacheB.getIfPresent(created.getId()) != null; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(svcB.get(created.getId())).isEmpty();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.flo_usr_demo;
+
+import com.example.flo_usr_demo.config.CompressionThresholdFilter;
+import jakarta.servlet.ServletOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for CompressionThresholdFilter: a flush commits the response only past the threshold,
+ * except for streaming formats.
+ */
+class CompressionThresholdFilterTest {
+
+    private CompressionThresholdFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new CompressionThresholdFilter();
+        ReflectionTestUtils.setField(filter, "minResponseSize", DataSize.ofKilobytes(2));
+    }
+
+    @Test
+    void smallJsonResponse_flushIsDeferred() throws Exception {
+        assertThat(flushAfterFirstLine("application/json")).isFalse();
+    }
+
+    @Test
+    void streamingResponses_areFlushedRightAway() throws Exception {
+        assertThat(flushAfterFirstLine("application/x-ndjson")).isTrue();
+        assertThat(flushAfterFirstLine("application/x-ndjson;charset=UTF-8")).isTrue();
+        assertThat(flushAfterFirstLine("application/cbor-seq")).isTrue();
+        assertThat(flushAfterFirstLine("text/event-stream")).isTrue();
+    }
+
+    /**
+     * Write one short line with the given content type, flush it, and tell whether the flush committed
+     * the response, i.e. reached the client.
+     */
+    private boolean flushAfterFirstLine(String contentType) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean[] committed = new boolean[1];
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/users/export"), response, (req, res) -> {
+            res.setContentType(contentType);
+            ServletOutputStream out = res.getOutputStream();
+            out.write("{\"row\":1}\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            committed[0] = res.isCommitted();
+        });
+        return committed[0];
+    }
+}
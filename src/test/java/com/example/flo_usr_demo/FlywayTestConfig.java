@@ -0,0 +1,23 @@
+package com.example.flo_usr_demo;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Test configuration that rebuilds the schema from the Flyway migrations at every context start,
+ * so each test context starts from the seed data only.
+ */
+@Configuration
+@Profile("test")
+public class FlywayTestConfig {
+
+    @Bean
+    public FlywayMigrationStrategy cleanMigrateStrategy() {
+        return flyway -> {
+            flyway.clean();
+            flyway.migrate();
+        };
+    }
+}
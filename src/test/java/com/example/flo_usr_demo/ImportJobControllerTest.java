@@ -0,0 +1,294 @@
+package com.example.flo_usr_demo;
+
+import com.example.flo_usr_demo.dto.ImportJobDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.ZstdOutputStream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for ImportJobController.
+ * The context is discarded afterwards so the imported rows do not leak into other test classes.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "app.import.server-dir=build/server-import")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class ImportJobControllerTest {
+
+    private static final Path SERVER_DIR = Path.of("build/server-import");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void submit_validFile_completesWithProgress() throws Exception {
+        String csv = "Name,Surname,Email,Adress\n" +
+                "Job,One,job.one@example.com,Addr 1\n" +
+                "Job,Two,job.two@example.com,Addr 2\n" +
+                "bad,cols\n";
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "jobs.csv", "text/csv", csv.getBytes()
+        );
+
+        String json = mvc.perform(multipart("/api/users/import-jobs").file(file))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        ImportJobDto job = awaitCompletion(mapper.readValue(json, ImportJobDto.class));
+
+        assertThat(job.getStatus()).isEqualTo("COMPLETED");
+        assertThat(job.getRowsRead()).isEqualTo(3);
+        assertThat(job.getRowsAccepted()).isEqualTo(2);
+        assertThat(job.getRowsRejected()).isEqualTo(1);
+        assertThat(job.getErrors()).singleElement().asString().startsWith("Row 3:");
+    }
+
+    @Test
+    void submit_strayQuote_rejectsOnlyItsRow() throws Exception {
+        String csv = "Name,Surname,Email,Adress\n" +
+                "Quote,One,quote.one@example.com,Addr\n" +
+                "Quote,O\"Two,quote.two@example.com,\"Via, Milano\"\n" +
+                "Quote,Three,quote.three@example.com,Addr\n";
+
+        ImportJobDto job = awaitCompletion(submit(
+                new MockMultipartFile("file", "quote.csv", "text/csv", csv.getBytes()), false));
+
+        assertThat(job.getStatus()).isEqualTo("COMPLETED");
+        assertThat(job.getRowsRead()).isEqualTo(3);
+        assertThat(job.getRowsAccepted()).isEqualTo(2);
+        assertThat(job.getErrors()).singleElement().asString()
+                .isEqualTo("Row 2: Malformed CSV: quote inside an unquoted field");
+    }
+
+    @Test
+    void submit_sameFileAgain_isNotImportedTwice() throws Exception {
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "again.csv", "text/csv", "Name,Surname,Email,Adress\nAgain,One,again.one@example.com,Addr\n".getBytes()
+        );
+        ImportJobDto first = awaitCompletion(submit(file, false));
+        assertThat(first.getRowsAccepted()).isEqualTo(1);
+
+        ImportJobDto second = awaitCompletion(submit(file, false));
+
+        assertThat(second.getStatus()).isEqualTo("COMPLETED");
+        assertThat(second.getFileHash()).isEqualTo(first.getFileHash());
+        assertThat(second.getResumedAfterRow()).isEqualTo(1);
+        assertThat(second.getRowsRead()).isZero();
+        assertThat(second.getErrors()).singleElement().asString().contains("already imported");
+
+        ImportJobDto restarted = awaitCompletion(submit(file, true));
+
+        assertThat(restarted.getResumedAfterRow()).isZero();
+        assertThat(restarted.getRowsRead()).isEqualTo(1);
+        assertThat(restarted.getRowsAccepted()).isZero();
+    }
+
+    @Test
+    void submit_interruptedFile_resumesAfterCheckpoint() throws Exception {
+        String header = "Name,Surname,Email,Adress\n";
+        String committed = "Resume,One,resume.one@example.com,\"Via \nMilano\"\n";
+        byte[] csv = (header + committed +
+                "Resume,Two,resume.two@example.com,Addr\r\n" +
+                "Resume,Three,resume.three@example.com,Addr\n").getBytes(StandardCharsets.UTF_8);
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(csv));
+        // as left by a job that committed its first chunk (one row) and then died
+        jdbc.update("INSERT INTO import_checkpoints (file_hash, file_name, byte_offset, rows_done) VALUES (?, ?, ?, 1)",
+                hash, "resume.csv", (header + committed).getBytes(StandardCharsets.UTF_8).length);
+
+        ImportJobDto job = awaitCompletion(submit(new MockMultipartFile("file", "resume.csv", "text/csv", csv), false));
+
+        assertThat(job.getStatus()).isEqualTo("COMPLETED");
+        assertThat(job.getResumedAfterRow()).isEqualTo(1);
+        assertThat(job.getRowsRead()).isEqualTo(2);
+        assertThat(job.getRowsAccepted()).isEqualTo(2);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM users WHERE email LIKE 'resume.%'", Long.class))
+                .isEqualTo(2);
+        assertThat(jdbc.queryForObject("SELECT rows_done FROM import_checkpoints WHERE file_hash = ? AND completed",
+                Long.class, hash)).isEqualTo(3);
+    }
+
+    @Test
+    void cancel_whileChunkIsCommitting_waitsForIt() throws Exception {
+        String csv = "Name,Surname,Email,Adress\n" +
+                "Cancel,One,cancel.one@example.com,Addr\n" +
+                "Cancel,Two,cancel.two@example.com,Addr\n";
+        try (Connection blocker = dataSource.getConnection()) {
+            // an uncommitted row with the same email makes the chunk insert wait for this transaction
+            blocker.setAutoCommit(false);
+            blocker.createStatement().execute("INSERT INTO users (first_name, last_name, email, address) " +
+                    "VALUES ('Cancel', 'Blocker', 'cancel.two@example.com', 'Addr')");
+            ImportJobDto job = submit(new MockMultipartFile("file", "cancel.csv", "text/csv", csv.getBytes()), false);
+            for (int i = 0; i < 50 && jdbc.queryForObject("SELECT count(*) FROM pg_locks WHERE NOT granted", Long.class) == 0; i++) {
+                Thread.sleep(100);
+            }
+
+            CompletableFuture<ImportJobDto> cancelled = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return mapper.readValue(mvc.perform(delete("/api/users/import-jobs/" + job.getId()))
+                            .andReturn().getResponse().getContentAsString(), ImportJobDto.class);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            Thread.sleep(300);
+            assertThat(cancelled).as("cancel waits for the chunk being committed").isNotDone();
+            blocker.rollback();
+
+            ImportJobDto result = cancelled.get(10, TimeUnit.SECONDS);
+            // the job may also have finished right after the chunk, before the cancellation got its turn
+            assertThat(result.getStatus()).isIn("CANCELLED", "COMPLETED");
+            long imported = jdbc.queryForObject("SELECT count(*) FROM users WHERE email LIKE 'cancel.%'", Long.class);
+            assertThat(imported).isEqualTo(result.getRowsAccepted());
+
+            // nothing is committed after the job was reported cancelled
+            Thread.sleep(500);
+            assertThat(jdbc.queryForObject("SELECT count(*) FROM users WHERE email LIKE 'cancel.%'", Long.class))
+                    .isEqualTo(imported);
+        }
+    }
+
+    @Test
+    void submit_compressedFile_isSpooledDecompressed() throws Exception {
+        byte[] csv = ("Name,Surname,Email,Adress\n" +
+                "Zstd,One,zstd.one@example.com,Addr 1\n" +
+                "Zstd,Two,zstd.two@example.com,Addr 2\n").getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new ZstdOutputStream(compressed)) {
+            out.write(csv);
+        }
+
+        ImportJobDto job = awaitCompletion(submit(
+                new MockMultipartFile("file", "users.csv.zst", "application/zstd", compressed.toByteArray()), false));
+
+        assertThat(job.getStatus()).isEqualTo("COMPLETED");
+        assertThat(job.getRowsAccepted()).isEqualTo(2);
+        // same identity as the uncompressed file, so either can resume the other
+        assertThat(job.getFileHash())
+                .isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(csv)));
+    }
+
+    @Test
+    void submit_corruptGzipFile_isRejected() throws Exception {
+        byte[] corrupt = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, 3, 1, 2, 3, 4, 5};
+
+        mvc.perform(multipart("/api/users/import-jobs")
+                        .file(new MockMultipartFile("file", "users.csv.gz", "application/gzip", corrupt)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(startsWith("Corrupt gzip upload")));
+    }
+
+    @BeforeAll
+    static void createServerImportDirectory() throws Exception {
+        Files.createDirectories(SERVER_DIR);
+    }
+
+    @Test
+    void submitServerFile_importsInPlace() throws Exception {
+        Path file = Files.writeString(SERVER_DIR.resolve("server.csv"), "Name,Surname,Email,Adress\n" +
+                "Server,One,server.one@example.com,\"Via Roma, 1\"\n" +
+                "Server,Two,server.two@example.com,Addr 2\n");
+
+        String json = mvc.perform(post("/api/users/import-jobs/server-file").param("path", "server.csv"))
+                .andExpect(status().isAccepted())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        ImportJobDto job = awaitCompletion(mapper.readValue(json, ImportJobDto.class));
+
+        assertThat(job.getStatus()).isEqualTo("COMPLETED");
+        assertThat(job.getRowsAccepted()).isEqualTo(2);
+        assertThat(jdbc.queryForObject("SELECT address FROM users WHERE email = 'server.one@example.com'", String.class))
+                .isEqualTo("Via Roma, 1");
+        assertThat(file).exists();
+        // the file is hashed by the job, not by the request
+        assertThat(job.getFileHash()).isEqualTo(HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file))));
+
+        String again = mvc.perform(post("/api/users/import-jobs/server-file").param("path", "server.csv"))
+                .andExpect(status().isAccepted())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        ImportJobDto second = awaitCompletion(mapper.readValue(again, ImportJobDto.class));
+        assertThat(second.getRowsRead()).isZero();
+        assertThat(second.getErrors()).singleElement().asString().contains("already imported");
+    }
+
+    @Test
+    void submitServerFile_outsideImportDirectory_isRejected() throws Exception {
+        mvc.perform(post("/api/users/import-jobs/server-file").param("path", "../../build.gradle"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/users/import-jobs/server-file").param("path", "/etc/passwd"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/users/import-jobs/server-file").param("path", "missing.csv"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void get_unknownJob_returns404() throws Exception {
+        mvc.perform(get("/api/users/import-jobs/does-not-exist"))
+                .andExpect(status().isNotFound());
+        mvc.perform(delete("/api/users/import-jobs/does-not-exist"))
+                .andExpect(status().isNotFound());
+    }
+
+    private ImportJobDto submit(MockMultipartFile file, boolean restart) throws Exception {
+        String json = mvc.perform(multipart("/api/users/import-jobs").file(file).param("restart", String.valueOf(restart)))
+                .andExpect(status().isAccepted())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return mapper.readValue(json, ImportJobDto.class);
+    }
+
+    private ImportJobDto awaitCompletion(ImportJobDto submitted) throws Exception {
+        ImportJobDto job = submitted;
+        for (int i = 0; i < 50 && !job.getStatus().equals("COMPLETED"); i++) {
+            Thread.sleep(100);
+            job = mapper.readValue(mvc.perform(get("/api/users/import-jobs/" + submitted.getId()))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString(), ImportJobDto.class);
+        }
+        return job;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.flo_usr_demo;
+
+import com.example.flo_usr_demo.dto.UserDto;
+import com.example.flo_usr_demo.service.UserCache;
+import com.example.flo_usr_demo.service.UserService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration test of the user cache in front of a lagging read replica.
+ * The replica is a second database on the test server holding an older copy of the users table: it reports
+ * no lag, so read-only transactions use it, but it has not seen the latest change made on the primary.
+ */
+@SpringBootTest(properties = {
+        "app.datasource.replicas[0].url=jdbc:postgresql://localhost:5432/" + LaggingReplicaCacheTest.REPLICA_DB,
+        "app.datasource.replicas[0].username=${spring.datasource.username}",
+        "app.datasource.replicas[0].password=${spring.datasource.password}",
+        "app.datasource.replicas[0].hikari.maximum-pool-size=2",
+        "app.datasource.replica.check-interval=1h"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class LaggingReplicaCacheTest {
+
+    static final String REPLICA_DB = "lagging_replica";
+
+    private static final JdbcTemplate server = new JdbcTemplate(
+            new DriverManagerDataSource("jdbc:postgresql://localhost:5432/postgres", "postgres", "admin"));
+
+    private static final JdbcTemplate replica = new JdbcTemplate(
+            new DriverManagerDataSource("jdbc:postgresql://localhost:5432/" + REPLICA_DB, "postgres", "admin"));
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserService service;
+
+    @Autowired
+    private UserCache cache;
+
+    @BeforeAll
+    static void createReplica() {
+        server.execute("DROP DATABASE IF EXISTS " + REPLICA_DB + " WITH (FORCE)");
+        server.execute("CREATE DATABASE " + REPLICA_DB);
+        replica.execute("CREATE TABLE users (id bigint PRIMARY KEY, first_name varchar(255), last_name varchar(255), " +
+                "email varchar(255), address varchar(255), version bigint)");
+    }
+
+    @AfterAll
+    static void dropReplica() {
+        server.execute("DROP DATABASE IF EXISTS " + REPLICA_DB + " WITH (FORCE)");
+    }
+
+    @Test
+    void evictedUser_isReloadedFromPrimary_notFromLaggingReplica() {
+        long id = jdbc.queryForObject("INSERT INTO users (first_name, last_name, email, address) " +
+                "VALUES ('Lag', 'Replica', 'lag.replica@example.com', 'Old') RETURNING id", Long.class);
+        try {
+            reloadAfterEviction(id);
+        } finally {
+            jdbc.update("DELETE FROM users WHERE id = ?", id);
+            cache.evict(id);
+        }
+    }
+
+    private void reloadAfterEviction(long id) {
+        // the replica has replayed the row as it is now, but not the update that follows
+        replica.update("INSERT INTO users SELECT ?, ?, ?, ?, ?, ?",
+                jdbc.query("SELECT id, first_name, last_name, email, address, version FROM users WHERE id = ?",
+                        (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getString(3),
+                                rs.getString(4), rs.getString(5), rs.getLong(6)}, id).get(0));
+        long before = replica.queryForObject("SELECT version FROM users WHERE id = ?", Long.class, id);
+
+        // another instance updates the user and its NOTIFY evicts it here
+        jdbc.update("UPDATE users SET address = 'Moved', version = version + 1 WHERE id = ?", id);
+        cache.evict(id);
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Long replicaVersion = readOnly.execute(tx ->
+                jdbc.queryForObject("SELECT version FROM users WHERE id = ?", Long.class, id));
+        assertThat(replicaVersion)
+                .as("read-only transactions see the lagging replica")
+                .isEqualTo(before);
+
+        UserDto loaded = service.get(id).orElseThrow();
+        assertThat(loaded.getVersion()).isEqualTo(before + 1);
+        assertThat(loaded.getAddress()).isEqualTo("Moved");
+        assertThat(cache.getIfPresent(id)).extracting(UserDto::getVersion).isEqualTo(before + 1);
+
+        cache.evict(id);
+        assertThat(service.getAll(List.of(id)).getUsers())
+                .singleElement()
+                .extracting(UserDto::getVersion)
+                .isEqualTo(before + 1);
+    }
+}
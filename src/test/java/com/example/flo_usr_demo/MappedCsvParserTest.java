@@ -0,0 +1,162 @@
+package com.example.flo_usr_demo;
+
+import com.example.flo_usr_demo.service.MappedCsvParser;
+import com.opencsv.CSVWriter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link MappedCsvParser}, on files small enough to be cut into many segments.
+ */
+class MappedCsvParserTest {
+
+    private static ExecutorService executor;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void startExecutor() {
+        executor = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterAll
+    static void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Test that quoted fields with commas, quotes, line breaks and non-ASCII characters survive
+     * being split into segments, and come back in file order.
+     */
+    @Test
+    void parse_tinySegments_returnsRowsInOrder() throws Exception {
+        List<String[]> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            expected.add(new String[]{"Nome" + i, "O'Brien \"" + i + "\"", "u" + i + "@example.com",
+                    i % 3 == 0 ? "Via Roma, " + i + "\nScala B" : "Città " + i});
+        }
+        StringWriter csv = new StringWriter();
+        try (CSVWriter writer = new CSVWriter(csv)) {
+            writer.writeNext(new String[]{"firstName", "lastName", "email", "address"});
+            writer.writeAll(expected);
+        }
+        Path file = write(csv.toString());
+
+        List<String[]> rows = parseAll(file, 16);
+
+        assertThat(rows).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(expected);
+    }
+
+    /**
+     * Test unquoted fields, \r\n line ends, short and empty rows, a missing final line break,
+     * and that each row reports where the next one starts.
+     */
+    @Test
+    void parse_plainRows_reportsEndOffsets() throws Exception {
+        String header = "firstName,lastName,email,address\r\n";
+        String first = "Anna,Neri,anna@x.com,\r\n";
+        String second = "\n";
+        String third = "bad,cols";
+        Path file = write(header + first + second + third);
+        MappedCsvParser parser = new MappedCsvParser(executor, 3, 1);
+        List<String[]> rows = new ArrayList<>();
+        List<Long> offsets = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long start = MappedCsvParser.headerEnd(channel);
+            assertThat(start).isEqualTo(header.length());
+            parser.parse(channel, start, segment -> {
+                rows.addAll(segment.rows());
+                for (long offset : segment.endOffsets()) {
+                    offsets.add(offset);
+                }
+                return true;
+            });
+        }
+
+        assertThat(rows).containsExactly(
+                new String[]{"Anna", "Neri", "anna@x.com", ""},
+                new String[]{""},
+                new String[]{"bad", "cols"});
+        assertThat(offsets).containsExactly(
+                (long) (header + first).length(),
+                (long) (header + first + second).length(),
+                (long) (header + first + second + third).length());
+    }
+
+    /**
+     * Test that a quote inside an unquoted field makes only its own row malformed, whatever the segment size:
+     * the rows around it, including a later quoted field with a comma and a line break, are parsed as usual.
+     */
+    @Test
+    void parse_strayQuote_rejectsOnlyItsRow() throws Exception {
+        String csv = "firstName,lastName,email,address\n" +
+                "Anna,Neri,anna@x.com,Addr\n" +
+                "Luca,O\"Brien,luca@x.com,\"Via, Milano\"\n" +
+                "Ugo,Verdi,ugo@x.com,\"Via Roma\nScala B\"\n" +
+                "Eva,Blu,eva@x.com,5\" monitor\n" +
+                "Ada,Rosa,ada@x.com,Addr\n";
+        Path file = write(csv);
+
+        for (long segmentSize : new long[]{1, 16, 1 << 20}) {
+            List<String[]> rows = parseAll(file, segmentSize);
+
+            assertThat(rows).as("segment size %d", segmentSize).containsExactly(
+                    new String[]{"Anna", "Neri", "anna@x.com", "Addr"},
+                    null,
+                    new String[]{"Ugo", "Verdi", "ugo@x.com", "Via Roma\nScala B"},
+                    null,
+                    new String[]{"Ada", "Rosa", "ada@x.com", "Addr"});
+        }
+    }
+
+    /**
+     * Test that parsing stops as soon as the consumer asks to.
+     */
+    @Test
+    void parse_consumerStops_returnsFalse() throws Exception {
+        Path file = write("h\na\nb\nc\n");
+        MappedCsvParser parser = new MappedCsvParser(executor, 2, 1);
+        List<String[]> rows = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            boolean completed = parser.parse(channel, MappedCsvParser.headerEnd(channel), segment -> {
+                rows.addAll(segment.rows());
+                return false;
+            });
+
+            assertThat(completed).isFalse();
+        }
+        assertThat(rows).hasSize(1);
+    }
+
+    private Path write(String content) throws Exception {
+        return Files.writeString(dir.resolve("users.csv"), content, StandardCharsets.UTF_8);
+    }
+
+    private List<String[]> parseAll(Path file, long segmentSize) throws Exception {
+        MappedCsvParser parser = new MappedCsvParser(executor, 3, segmentSize);
+        List<String[]> rows = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertThat(parser.parse(channel, MappedCsvParser.headerEnd(channel), segment -> rows.addAll(segment.rows())))
+                    .isTrue();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.flo_usr_demo;
+
+import com.example.flo_usr_demo.controller.UserController;
+import com.example.flo_usr_demo.dto.UserDto;
+import com.example.flo_usr_demo.service.ReactiveUserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for ReactiveUserController.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReactiveUserControllerTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private ReactiveUserService reactiveService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void get_existingUser_returnsUser() throws Exception {
+        mvc.perform(asyncDispatch(start(get("/api/reactive/users/1"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.firstName").value("Alice"));
+    }
+
+    @Test
+    void get_nonexistentUser_returns404() throws Exception {
+        mvc.perform(asyncDispatch(start(get("/api/reactive/users/9999"))))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void search_ndjson_streamsMatchesInIdOrder() throws Exception {
+        String ndjson = perform(get("/api/reactive/users")
+                        .param("firstName", "R")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        List<String> names = ndjson.lines().map(this::read).map(UserDto::getFirstName).toList();
+        assertThat(names).containsExactly("Bruno", "Carla");
+    }
+
+    @Test
+    void search_json_returnsArray() throws Exception {
+        perform(get("/api/reactive/users")
+                        .param("firstName", "ali")
+                        .param("lastName", "ROSS")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].email").value("alice.rossi@example.com"));
+    }
+
+    @Test
+    void search_withLimit_returnsCursorForNextPage() throws Exception {
+        MvcResult first = perform(get("/api/reactive/users")
+                        .param("firstName", "R")
+                        .param("limit", "1")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(UserController.NEXT_CURSOR_HEADER))
+                .andExpect(header().string("Link", containsString("rel=\"next\"")))
+                .andReturn();
+        assertThat(first.getResponse().getContentAsString().lines().map(this::read).map(UserDto::getFirstName))
+                .containsExactly("Bruno");
+
+        String cursor = first.getResponse().getHeader(UserController.NEXT_CURSOR_HEADER);
+        String second = perform(get("/api/reactive/users")
+                        .param("firstName", "R")
+                        .param("limit", "1")
+                        .param("cursor", cursor)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        assertThat(second.lines().map(this::read).map(UserDto::getFirstName)).containsExactly("Carla");
+    }
+
+    @Test
+    void searchPage_userDeletedBeforeStreaming_pageStillEndsAtCursor() {
+        List<Long> ids = jdbc.queryForList("INSERT INTO users (first_name, last_name, email) VALUES " +
+                "('Paginata', 'Uno', 'paginata.uno@example.com'), " +
+                "('Paginata', 'Due', 'paginata.due@example.com'), " +
+                "('Paginata', 'Tre', 'paginata.tre@example.com') RETURNING id", Long.class);
+        try {
+            ReactiveUserService.Page first = reactiveService.searchPage("Paginata", null, null, 2).block();
+            // the first user of the page goes away between the cursor lookup and the streaming of the page
+            jdbc.update("DELETE FROM users WHERE id = ?", ids.get(0));
+
+            assertThat(first.items().map(UserDto::getId).collectList().block()).containsExactly(ids.get(1));
+            ReactiveUserService.Page second =
+                    reactiveService.searchPage("Paginata", null, first.nextCursor(), 2).block();
+            assertThat(second.items().map(UserDto::getId).collectList().block()).containsExactly(ids.get(2));
+            assertThat(second.nextCursor()).isNull();
+        } finally {
+            jdbc.update("DELETE FROM users WHERE id = ANY(?)", (Object) ids.toArray(new Long[0]));
+        }
+    }
+
+    @Test
+    void search_lastPage_hasNoCursor() throws Exception {
+        perform(get("/api/reactive/users")
+                        .param("firstName", "ali")
+                        .param("lastName", "ROSS")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(UserController.NEXT_CURSOR_HEADER))
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    void search_invalidCursor_returnsBadRequest() throws Exception {
+        mvc.perform(get("/api/reactive/users").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void search_invalidLimit_returnsBadRequest() throws Exception {
+        mvc.perform(get("/api/reactive/users").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void export_streamsOneUserPerLine() throws Exception {
+        String ndjson = mvc.perform(asyncDispatch(start(get("/api/reactive/users/export"))))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        List<UserDto> users = ndjson.lines().map(this::read).toList();
+        assertThat(users).hasSizeGreaterThanOrEqualTo(3);
+        assertThat(users.get(0).getId()).isEqualTo(1L);
+    }
+
+    /**
+     * Run a request to completion: a paged search first resolves its page, with the headers,
+     * and then streams its users, each step being an asynchronous dispatch.
+     */
+    private ResultActions perform(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = start(request);
+        ResultActions actions;
+        do {
+            actions = mvc.perform(asyncDispatch(result));
+            result = actions.andReturn();
+        } while (result.getRequest().isAsyncStarted());
+        return actions;
+    }
+
+    private MvcResult start(MockHttpServletRequestBuilder request) throws Exception {
+        return mvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private UserDto read(String json) {
+        try {
+            return mapper.readValue(json, UserDto.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
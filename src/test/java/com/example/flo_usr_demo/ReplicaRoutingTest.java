@@ -0,0 +1,127 @@
+package com.example.flo_usr_demo;
+
+import com.example.flo_usr_demo.config.ReplicaRoutingDataSource;
+import com.example.flo_usr_demo.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests of read-replica routing.
+ * The test database stands in for a healthy replica, reached through its own pool whose connections are
+ * recognisable by their application_name; a second replica cannot be reached and must be skipped.
+ */
+@SpringBootTest(properties = {
+        "app.datasource.replicas[0].url=${spring.datasource.url}?ApplicationName=replica-0",
+        "app.datasource.replicas[0].username=${spring.datasource.username}",
+        "app.datasource.replicas[0].password=${spring.datasource.password}",
+        "app.datasource.replicas[0].hikari.maximum-pool-size=2",
+        "app.datasource.replicas[1].url=jdbc:postgresql://localhost:1/postgres",
+        "app.datasource.replicas[1].username=postgres",
+        "app.datasource.replicas[1].hikari.connection-timeout=250",
+        "app.datasource.replica.check-interval=1h"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class ReplicaRoutingTest {
+
+    private static final String APPLICATION_NAME = "SELECT current_setting('application_name')";
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository repo;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Test
+    void readOnlyTransactions_useReplica_andWritesUsePrimary() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        for (int i = 0; i < 4; i++) {
+            // round robin over the replicas never picks the unreachable one
+            String name = readOnly.execute(tx -> jdbc.queryForObject(APPLICATION_NAME, String.class));
+            assertThat(name).isEqualTo("replica-0");
+        }
+        String name = readWrite.execute(tx -> jdbc.queryForObject(APPLICATION_NAME, String.class));
+        assertThat(name).isNotEqualTo("replica-0");
+        assertThat(jdbc.queryForObject(APPLICATION_NAME, String.class)).isNotEqualTo("replica-0");
+    }
+
+    @Test
+    void repositoryReads_useReplica() {
+        double before = replicaConnectionUses();
+
+        assertThat(repo.searchByFirstName("alice", 0L, 10)).hasSize(1);
+        assertThat(replicaConnectionUses()).as("search").isEqualTo(before + 1);
+        assertThat(repo.findById(1L)).isPresent();
+
+        assertThat(replicaConnectionUses()).isEqualTo(before + 2);
+    }
+
+    @Test
+    void unreachableReplica_isReportedUnavailable() {
+        assertThat(registry.get("datasource.replica.available").tag("replica", "replica-0").gauge().value())
+                .isEqualTo(1);
+        assertThat(registry.get("datasource.replica.available").tag("replica", "replica-1").gauge().value())
+                .isZero();
+        assertThat(registry.get("datasource.replica.lag").tag("replica", "replica-0").gauge().value())
+                .isZero();
+    }
+
+    @Test
+    void noUsableReplica_fallsBackToPrimary() throws Exception {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        HikariDataSource down = new HikariDataSource();
+        down.setJdbcUrl("jdbc:postgresql://localhost:1/postgres");
+        down.setPoolName("down");
+        down.setConnectionTimeout(250);
+        HikariDataSource primary = new HikariDataSource();
+        primary.setJdbcUrl(url + "?ApplicationName=primary");
+        primary.setUsername("postgres");
+        primary.setPassword("admin");
+
+        try (ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                primary, List.of(down), Duration.ofSeconds(5), Duration.ofHours(1), meters)) {
+            routing.afterPropertiesSet();
+            try (Connection con = routing.getConnection();
+                 ResultSet rs = con.createStatement().executeQuery(APPLICATION_NAME)) {
+                rs.next();
+                assertThat(rs.getString(1)).isEqualTo("primary");
+            }
+            assertThat(meters.get("datasource.replica.fallbacks").counter().count()).isEqualTo(1);
+        } finally {
+            primary.close();
+        }
+    }
+
+    private double replicaConnectionUses() {
+        return registry.get("hikaricp.connections.usage").tag("pool", "replica-0").timer().count();
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.flo_usr_demo;
+
+import com.example.flo_usr_demo.service.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SingleFlight}: concurrent callers with the same key share one load.
+ */
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void concurrentCallsWithSameKey_shareOneLoad() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", true, registry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = callConcurrently(() -> flight.execute("alice", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "Alice";
+        }));
+        // every other caller has joined the running load before it completes
+        awaitCount("shared", CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("Alice");
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(count("executed")).isEqualTo(1);
+        assertThat(registry.get("singleflight.in.flight").gauge().value()).isZero();
+    }
+
+    @Test
+    void failedLoad_isRethrownToEveryWaitingCaller() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", true, registry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = callConcurrently(() -> flight.execute("boom", () -> {
+            await(release);
+            throw new IllegalStateException("database down");
+        }));
+        awaitCount("shared", CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("database down");
+        }
+        // nothing is kept after a failure: the next call loads again
+        assertThat(flight.execute("boom", () -> "recovered")).isEqualTo("recovered");
+    }
+
+    @Test
+    void sequentialCalls_andDistinctKeys_areNotShared() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", true, registry);
+
+        flight.execute("a", () -> "1");
+        flight.execute("a", () -> "2");
+        assertThat(flight.execute("b", () -> "3")).isEqualTo("3");
+
+        assertThat(count("executed")).isEqualTo(3);
+        assertThat(count("shared")).isZero();
+    }
+
+    @Test
+    void disabled_runsEveryLoad() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", false, registry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch allStarted = new CountDownLatch(CALLERS);
+
+        List<Future<String>> results = callConcurrently(() -> flight.execute("alice", () -> {
+            loads.incrementAndGet();
+            allStarted.countDown();
+            await(allStarted);
+            return "Alice";
+        }));
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("Alice");
+        }
+        assertThat(loads).hasValue(CALLERS);
+        assertThat(count("shared")).isZero();
+    }
+
+    private List<Future<String>> callConcurrently(Callable<String> call) {
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(pool.submit(call));
+        }
+        pool.shutdown();
+        return results;
+    }
+
+    private double count(String result) {
+        return registry.get("singleflight.calls").tag("result", result).counter().count();
+    }
+
+    private void awaitCount(String result, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count(result) < expected) {
+            assertThat(System.nanoTime()).as("callers joining the load").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
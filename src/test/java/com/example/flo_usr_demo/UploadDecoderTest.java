@@ -0,0 +1,79 @@
+package com.example.flo_usr_demo;
+
+import com.example.flo_usr_demo.exception.BadRequestException;
+import com.example.flo_usr_demo.service.UploadDecoder;
+import com.github.luben.zstd.Zstd;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for UploadDecoder.
+ */
+class UploadDecoderTest {
+
+    private static final byte[] CSV = "Name,Surname,Email,Adress\nAlice,Rossi,alice@example.com,Roma\n"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private UploadDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        decoder = new UploadDecoder();
+        ReflectionTestUtils.setField(decoder, "maxDecompressedSize", DataSize.ofKilobytes(1));
+    }
+
+    @Test
+    void open_plainGzipAndZstd_giveTheSameContent() throws Exception {
+        assertThat(read(CSV)).isEqualTo(CSV);
+        assertThat(read(gzip(CSV))).isEqualTo(CSV);
+        assertThat(read(Zstd.compress(CSV))).isEqualTo(CSV);
+        // too short to be recognised as compressed
+        assertThat(read(new byte[]{0x1f})).containsExactly(0x1f);
+    }
+
+    @Test
+    void open_fileExpandingBeyondTheLimit_isRejected() throws Exception {
+        byte[] big = new byte[2048];
+
+        assertThat(read(big)).hasSize(2048); // uncompressed uploads are bounded by the multipart limits instead
+        assertThatThrownBy(() -> read(gzip(big)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("1024 bytes");
+    }
+
+    @Test
+    void open_truncatedZstd_isRejected() throws Exception {
+        byte[] compressed = Zstd.compress(CSV);
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length - 4);
+
+        assertThatThrownBy(() -> read(truncated))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageStartingWith("Corrupt zstd upload");
+    }
+
+    private byte[] read(byte[] upload) throws Exception {
+        try (InputStream in = decoder.open(new MockMultipartFile("file", upload))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] gzip(byte[] content) throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(content);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -2,17 +2,38 @@ package com.example.flo_usr_demo;
 
 import com.example.flo_usr_demo.dto.UserCreateDto;
 import com.example.flo_usr_demo.dto.UserDto;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.github.luben.zstd.Zstd;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -31,6 +52,12 @@ class UserControllerTest {
     @Autowired
     private ObjectMapper mapper;
 
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
     @Test
     void list_allUsers_returnsSeededData() throws Exception {
         mvc.perform(get("/api/users"))
@@ -111,6 +138,168 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.address").value("New Addr"));
     }
 
+    @Test
+    void patch_existingUser_changesOnlyGivenFields() throws Exception {
+        UserCreateDto create = new UserCreateDto(
+                "Pa", "Tch", "patch@example.com", "Old Addr"
+        );
+        UserDto created = mapper.readValue(mvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(create)))
+                .andReturn().getResponse().getContentAsString(), UserDto.class);
+
+        mvc.perform(patch("/api/users/" + created.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"address\":\"New Addr\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName").value("Pa"))
+                .andExpect(jsonPath("$.email").value("patch@example.com"))
+                .andExpect(jsonPath("$.address").value("New Addr"));
+
+        mvc.perform(get("/api/users/" + created.getId()))
+                .andExpect(jsonPath("$.address").value("New Addr"));
+
+        mvc.perform(delete("/api/users/" + created.getId()))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void patch_emailOfAnotherUser_returns409() throws Exception {
+        UserCreateDto create = new UserCreateDto(
+                "Dup", "Licate", "duplicate.patch@example.com", "Addr"
+        );
+        UserDto created = mapper.readValue(mvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(create)))
+                .andReturn().getResponse().getContentAsString(), UserDto.class);
+        String taken = mvc.perform(get("/api/users/1"))
+                .andReturn().getResponse().getContentAsString();
+        String takenEmail = mapper.readValue(taken, UserDto.class).getEmail();
+
+        mvc.perform(patch("/api/users/" + created.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + takenEmail + "\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409));
+
+        mvc.perform(get("/api/users/" + created.getId()))
+                .andExpect(jsonPath("$.email").value("duplicate.patch@example.com"));
+
+        mvc.perform(delete("/api/users/" + created.getId()))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void patch_nonexistentUser_returns404() throws Exception {
+        mvc.perform(patch("/api/users/999999")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"address\":\"Nowhere\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void get_matchingIfNoneMatch_returns304WithoutBody() throws Exception {
+        String etag = mvc.perform(get("/api/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        MvcResult notModified = mvc.perform(get("/api/users/1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andReturn();
+        assertThat(notModified.getResponse().getContentAsString()).isEmpty();
+
+        mvc.perform(get("/api/users/1").header("If-None-Match", "\"999\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void update_withIfMatch_rejectsStaleVersion() throws Exception {
+        UserCreateDto create = new UserCreateDto(
+                "If", "Match", "ifmatch@example.com", "Addr 0"
+        );
+        String created = mvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(create)))
+                .andReturn().getResponse().getContentAsString();
+        Long id = mapper.readValue(created, UserDto.class).getId();
+        String etag = mvc.perform(get("/api/users/" + id))
+                .andReturn().getResponse().getHeader("ETag");
+
+        UserCreateDto first = new UserCreateDto("If", "Match", "ifmatch@example.com", "Addr 1");
+        String newEtag = mvc.perform(put("/api/users/" + id)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(first)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(newEtag).isNotEqualTo(etag);
+
+        // a second client still holding the old ETag must not overwrite the first update
+        UserCreateDto second = new UserCreateDto("If", "Match", "ifmatch@example.com", "Addr 2");
+        mvc.perform(put("/api/users/" + id)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(second)))
+                .andExpect(status().isPreconditionFailed());
+
+        mvc.perform(get("/api/users/" + id).header("If-None-Match", newEtag))
+                .andExpect(status().isNotModified());
+
+        mvc.perform(delete("/api/users/" + id))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void patch_withIfMatch_rejectsStaleVersion() throws Exception {
+        UserCreateDto create = new UserCreateDto(
+                "If", "Patch", "ifpatch@example.com", "Addr 0"
+        );
+        String created = mvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(create)))
+                .andReturn().getResponse().getContentAsString();
+        Long id = mapper.readValue(created, UserDto.class).getId();
+        String etag = mvc.perform(get("/api/users/" + id))
+                .andReturn().getResponse().getHeader("ETag");
+
+        String newEtag = mvc.perform(patch("/api/users/" + id)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"address\":\"Addr 1\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.address").value("Addr 1"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(newEtag).isNotEqualTo(etag);
+
+        // a second client still holding the old ETag must not overwrite the first patch
+        mvc.perform(patch("/api/users/" + id)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"address\":\"Addr 2\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        mvc.perform(get("/api/users/" + id))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", newEtag))
+                .andExpect(jsonPath("$.address").value("Addr 1"));
+
+        mvc.perform(delete("/api/users/" + id))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void batchGet_returnsUsersInRequestOrderAndMissingIds() throws Exception {
+        mvc.perform(post("/api/users/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[3,1,999999,1]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[*].id").value(contains(3, 1)))
+                .andExpect(jsonPath("$.users[0].email").value("carla.verdi@example.com"))
+                .andExpect(jsonPath("$.missingIds").value(contains(999999)));
+    }
+
     @Test
     void uploadCsv_validFile_importsData() throws Exception {
         String csv = "Name,Surname,Email,Adress\nCsv,User,csv.user@example.com,Csv Addr\n";
@@ -133,4 +322,442 @@ class UserControllerTest {
         mvc.perform(multipart("/api/users/upload").file(file))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void uploadCsv_corruptGzip_returnsBadRequestWithReason() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write("Name,Surname,Email,Adress\nGzip,Corrupt,gzip.corrupt@example.com,Addr\n"
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] truncated = Arrays.copyOf(compressed.toByteArray(), compressed.size() - 10);
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "users.csv.gz", "application/gzip", truncated
+        );
+
+        mvc.perform(multipart("/api/users/upload").file(file))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("Corrupt gzip upload")));
+    }
+
+    @Test
+    void uploadCsv_readsUtf8() throws Exception {
+        String csv = "Name,Surname,Email,Adress\nZoë,Çelik,zoe.celik@example.com,Via Città 1\n";
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "users.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8)
+        );
+
+        mvc.perform(multipart("/api/users/upload").file(file))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].firstName").value("Zoë"))
+                .andExpect(jsonPath("$[0].address").value("Via Città 1"));
+        jdbc.update("DELETE FROM users WHERE email = 'zoe.celik@example.com'");
+    }
+
+    @Test
+    void uploadCsv_invalidRows_reportsEveryRowAndImportsNothing() throws Exception {
+        String csv = "Name,Surname,Email,Adress\n" +
+                "Valid,Row,valid.row@example.com,Addr\n" +
+                "Bad,Email,not-an-email,Addr\n" +
+                "Same,Email,valid.row@example.com,Addr\n" +
+                "short,row\n";
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "invalid.csv", "text/csv", csv.getBytes()
+        );
+
+        mvc.perform(multipart("/api/users/upload").file(file))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].row").value(2))
+                .andExpect(jsonPath("$[0].field").value("email"))
+                .andExpect(jsonPath("$[1].row").value(3))
+                .andExpect(jsonPath("$[1].message").value("Email appears earlier in the file"))
+                .andExpect(jsonPath("$[2].row").value(4));
+
+        mvc.perform(get("/api/users/search/by-domain").param("domain", "example.com"))
+                .andExpect(jsonPath("$[?(@.email == 'valid.row@example.com')]").isEmpty());
+    }
+
+    @Test
+    void validateCsv_streamsNdjsonReport() throws Exception {
+        String csv = "Name,Surname,Email,Adress\n" +
+                "Valid,Row,valid.row@example.com,Addr\n" +
+                "X,Row,other.row@example.com,Addr\n";
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "check.csv", "text/csv", csv.getBytes()
+        );
+
+        MvcResult started = mvc.perform(multipart("/api/users/upload/validate").file(file))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String report = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertThat(report.lines()).containsExactly(
+                "{\"row\":2,\"field\":\"firstName\",\"message\":\"First name must be between 2 and 50 characters\"}");
+    }
+
+    @Test
+    void create_invalidBody_returnsBadRequestWithFieldErrors() throws Exception {
+        UserCreateDto create = new UserCreateDto("Test", "", "not-an-email", null);
+
+        mvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(create)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("email: Email should be valid")))
+                .andExpect(jsonPath("$.message", containsString("lastName: Last name is required")));
+    }
+
+    @Test
+    void uploadCsvStream_validFile_returnsSummary() throws Exception {
+        String csv = "Name,Surname,Email,Adress\n" +
+                "Stream,User,stream.user@example.com,Stream Addr\n" +
+                "bad,cols\n";
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "users.csv", "text/csv", csv.getBytes()
+        );
+
+        mvc.perform(multipart("/api/users/upload/stream").file(file))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsAccepted").value(1))
+                .andExpect(jsonPath("$.rowsRejected").value(1));
+    }
+
+    @Test
+    void uploadCsvStream_invalidAndOversizedRows_areRejectedAndReported() throws Exception {
+        String csv = "Name,Surname,Email,Adress\n" +
+                "Checked,Stream,checked.stream@example.com,Addr\n" +
+                "Bad,Email,not-an-email,Addr\n" +
+                "Long,Address,long.stream@example.com," + "x".repeat(300) + "\n";
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "users.csv", "text/csv", csv.getBytes()
+        );
+
+        mvc.perform(multipart("/api/users/upload/stream").file(file))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsAccepted").value(1))
+                .andExpect(jsonPath("$.rowsRejected").value(2))
+                .andExpect(jsonPath("$.errors.length()").value(2))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.errors[0].field").value("email"))
+                .andExpect(jsonPath("$.errors[1].row").value(3))
+                .andExpect(jsonPath("$.errors[1].field").value("address"));
+
+        mvc.perform(get("/api/users/search/by-domain").param("domain", "example.com"))
+                .andExpect(jsonPath("$[?(@.email == 'long.stream@example.com')]").isEmpty());
+        jdbc.update("DELETE FROM users WHERE email = 'checked.stream@example.com'");
+    }
+
+    @Test
+    void uploadCsvStream_gzipFile_isDecompressed() throws Exception {
+        String csv = "Name,Surname,Email,Adress\n" +
+                "Gzip,User,gzip.user@example.com,Gzip Addr\n";
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(csv.getBytes(StandardCharsets.UTF_8));
+        }
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "users.csv.gz", "application/gzip", compressed.toByteArray()
+        );
+
+        mvc.perform(multipart("/api/users/upload/stream").file(file))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsAccepted").value(1))
+                .andExpect(jsonPath("$.rowsRejected").value(0));
+    }
+
+    @Test
+    void uploadCsv_zstdFile_isDecompressed() throws Exception {
+        String csv = "Name,Surname,Email,Adress\n" +
+                "Zstd,User,zstd.user@example.com,Zstd Addr\n";
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "users.csv.zst", "application/zstd", Zstd.compress(csv.getBytes(StandardCharsets.UTF_8))
+        );
+
+        mvc.perform(multipart("/api/users/upload").file(file))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].email").value("zstd.user@example.com"));
+    }
+
+    @Test
+    void export_acceptingGzip_isCompressedWhileSmallResponsesAreNot() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        // enough rows for the export to pass server.compression.min-response-size
+        jdbc.update("INSERT INTO users (first_name, last_name, email, address) " +
+                "SELECT 'Gzip', 'Export', 'gzip.export' || i || '@example.com', 'Via Roma ' || i " +
+                "FROM generate_series(1, 100) i");
+        try {
+            HttpResponse<InputStream> export = client.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + port + "/api/users/export?format=csv"))
+                    .header("Accept-Encoding", "gzip")
+                    .build(), HttpResponse.BodyHandlers.ofInputStream());
+            assertThat(export.headers().firstValue("Content-Encoding")).contains("gzip");
+            try (InputStream body = new GZIPInputStream(export.body())) {
+                assertThat(new String(body.readAllBytes(), StandardCharsets.UTF_8))
+                        .startsWith("firstName,lastName,email,address")
+                        .contains("Gzip,Export,gzip.export100@example.com");
+            }
+        } finally {
+            jdbc.update("DELETE FROM users WHERE email LIKE 'gzip.export%'");
+        }
+
+        HttpResponse<String> page = client.send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/users?limit=1"))
+                .header("Accept-Encoding", "gzip")
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(page.headers().firstValue("Content-Encoding")).isEmpty();
+        assertThat(page.body()).contains("\"firstName\"");
+    }
+
+    @Test
+    void upsertCsv_invalidAndOversizedRows_areRejectedAndReported() throws Exception {
+        String csv = "Name,Surname,Email,Adress\n" +
+                "Bad,Email,not-an-email,Addr\n" +
+                "Alice,Rossi,alice.rossi@example.com," + "x".repeat(300) + "\n";
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "users.csv", "text/csv", csv.getBytes()
+        );
+
+        mvc.perform(multipart("/api/users/upsert").file(file))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsInserted").value(0))
+                .andExpect(jsonPath("$.rowsUpdated").value(0))
+                .andExpect(jsonPath("$.rowsRejected").value(2))
+                .andExpect(jsonPath("$.errors[0].row").value(1))
+                .andExpect(jsonPath("$.errors[0].field").value("email"))
+                .andExpect(jsonPath("$.errors[1].row").value(2))
+                .andExpect(jsonPath("$.errors[1].field").value("address"));
+
+        // the existing user is left as it was
+        mvc.perform(get("/api/users/search/by-domain").param("domain", "example.com"))
+                .andExpect(jsonPath("$[?(@.email == 'alice.rossi@example.com')].address")
+                        .value(contains("Via Roma 1, Roma")));
+    }
+
+    @Test
+    void upsertCsv_insertsUpdatesAndSkipsUnchangedRows() throws Exception {
+        UserCreateDto existing = new UserCreateDto("Upsert", "Existing", "upsert.existing@example.com", "Old Addr");
+        UserDto created = mapper.readValue(mvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(existing)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString(), UserDto.class);
+
+        String csv = "Name,Surname,Email,Adress\n" +
+                "Upsert,Existing,upsert.existing@example.com,New Addr\n" +
+                "Alice,Rossi,alice.rossi@example.com,\"Via Roma 1, Roma\"\n" +
+                "Upsert,New,upsert.new@example.com,Addr\n" +
+                "bad,cols\n";
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "users.csv", "text/csv", csv.getBytes()
+        );
+
+        mvc.perform(multipart("/api/users/upsert").file(file))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsInserted").value(1))
+                .andExpect(jsonPath("$.rowsUpdated").value(1))
+                .andExpect(jsonPath("$.rowsUnchanged").value(1))
+                .andExpect(jsonPath("$.rowsRejected").value(1));
+
+        // the cached copy created by POST must have been evicted
+        mvc.perform(get("/api/users/" + created.getId()))
+                .andExpect(jsonPath("$.address").value("New Addr"));
+
+        for (UserDto u : mapper.readValue(mvc.perform(get("/api/users").param("lastName", "New"))
+                .andReturn().getResponse().getContentAsString(), UserDto[].class)) {
+            mvc.perform(delete("/api/users/" + u.getId())).andExpect(status().isNoContent());
+        }
+        mvc.perform(delete("/api/users/" + created.getId())).andExpect(status().isNoContent());
+    }
+
+    @Test
+    void list_withLimit_returnsCursorForNextPage() throws Exception {
+        String cursor = mvc.perform(get("/api/users").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andExpect(header().string("Link", containsString("rel=\"next\"")))
+                .andReturn()
+                .getResponse()
+                .getHeader("X-Next-Cursor");
+
+        mvc.perform(get("/api/users").param("limit", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(greaterThan(2)));
+    }
+
+    @Test
+    void list_invalidCursor_returnsBadRequest() throws Exception {
+        mvc.perform(get("/api/users").param("cursor", "garbage"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void export_csv_streamsImportableRows() throws Exception {
+        MvcResult started = mvc.perform(get("/api/users/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String csv = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertThat(csv.lines().findFirst()).contains("firstName,lastName,email,address");
+        assertThat(csv).contains("Alice,Rossi,alice.rossi@example.com");
+    }
+
+    @Test
+    void export_ndjson_streamsOneUserPerLine() throws Exception {
+        MvcResult started = mvc.perform(get("/api/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String ndjson = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        UserDto first = mapper.readValue(ndjson.lines().findFirst().orElseThrow(), UserDto.class);
+        assertThat(first.getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void export_cborSeq_streamsOneItemPerUser() throws Exception {
+        MvcResult started = mvc.perform(get("/api/users/export").param("format", "cbor-seq"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] seq = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/cbor-seq"))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        try (MappingIterator<UserDto> users = new CBORMapper().readerFor(UserDto.class).readValues(seq)) {
+            UserDto first = users.next();
+            assertThat(first.getId()).isEqualTo(1L);
+            assertThat(first.getEmail()).isEqualTo("alice.rossi@example.com");
+            assertThat(users.readAll()).isNotEmpty();
+        }
+    }
+
+    @Test
+    void get_acceptingCbor_returnsCborBody() throws Exception {
+        byte[] body = mvc.perform(get("/api/users/1").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        UserDto user = new CBORMapper().readValue(body, UserDto.class);
+        assertThat(user.getFirstName()).isEqualTo("Alice");
+        assertThat(body.length).isLessThan(mapper.writeValueAsBytes(user).length);
+    }
+
+    @Test
+    void create_cborBody_isValidatedAndCreated() throws Exception {
+        CBORMapper cbor = new CBORMapper();
+
+        mvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .content(cbor.writeValueAsBytes(new UserCreateDto("Cbor", "", "cbor.user@example.com", null))))
+                .andExpect(status().isBadRequest());
+
+        byte[] body = mvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(cbor.writeValueAsBytes(
+                                new UserCreateDto("Cbor", "User", "cbor.user@example.com", "Cbor Addr"))))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        UserDto created = cbor.readValue(body, UserDto.class);
+        assertThat(created.getId()).isNotNull();
+        assertThat(created.getEmail()).isEqualTo("cbor.user@example.com");
+    }
+
+    @Test
+    void getUsersByDomain_acceptsBareAndPrefixedDomain() throws Exception {
+        mvc.perform(get("/api/users/search/by-domain").param("domain", "EXAMPLE.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].email").value("alice.rossi@example.com"));
+        mvc.perform(get("/api/users/search/by-domain").param("domain", "@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].email").value("alice.rossi@example.com"));
+    }
+
+    @Test
+    void searchText_matchesAddressWords() throws Exception {
+        mvc.perform(get("/api/users/search/text").param("q", "roma"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].firstName").value("Alice"));
+    }
+
+    @Test
+    void searchText_ranksNamesAboveAddresses_andPages() throws Exception {
+        UserCreateDto create = new UserCreateDto("Roma", "Test", "roma.test@example.com", "Via Milano 4");
+        String json = mvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(create)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        UserDto created = mapper.readValue(json, UserDto.class);
+
+        try {
+            String cursor = mvc.perform(get("/api/users/search/text").param("q", "roma").param("limit", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].id").value(created.getId()))
+                    .andExpect(header().exists("X-Next-Cursor"))
+                    .andReturn()
+                    .getResponse()
+                    .getHeader("X-Next-Cursor");
+
+            mvc.perform(get("/api/users/search/text").param("q", "roma").param("limit", "1").param("cursor", cursor))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].firstName").value("Alice"))
+                    .andExpect(header().doesNotExist("X-Next-Cursor"));
+        } finally {
+            mvc.perform(delete("/api/users/" + created.getId())).andExpect(status().isNoContent());
+        }
+    }
+
+    @Test
+    void searchText_blankQuery_returnsBadRequest() throws Exception {
+        mvc.perform(get("/api/users/search/text").param("q", " "))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/users/search/text").param("q", "roma").param("cursor", "garbage"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void get_repeatedLookups_areCountedAsCacheHits() throws Exception {
+        mvc.perform(get("/api/users/1")).andExpect(status().isOk());
+        mvc.perform(get("/api/users/1")).andExpect(status().isOk());
+
+        mvc.perform(get("/actuator/metrics/cache.gets")
+                        .param("tag", "cache:users")
+                        .param("tag", "result:hit"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value").value(greaterThan(0.0)));
+    }
 }
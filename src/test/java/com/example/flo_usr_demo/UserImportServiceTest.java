@@ -0,0 +1,187 @@
+package com.example.flo_usr_demo;
+
+import com.example.flo_usr_demo.dto.ImportSummaryDto;
+import com.example.flo_usr_demo.dto.RowErrorDto;
+import com.example.flo_usr_demo.dto.UpsertSummaryDto;
+import com.example.flo_usr_demo.dto.UserCreateDto;
+import com.example.flo_usr_demo.repository.UserJdbcRepository;
+import com.example.flo_usr_demo.repository.UserJdbcRepository.UpsertResult;
+import com.example.flo_usr_demo.service.ClusterCacheInvalidator;
+import com.example.flo_usr_demo.service.UserCache;
+import com.example.flo_usr_demo.service.UserImportService;
+import com.example.flo_usr_demo.service.UserRowValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link UserImportService}, using Mockito to isolate the JDBC layer.
+ */
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceTest {
+
+    @InjectMocks
+    private UserImportService service;
+
+    @Mock
+    private UserJdbcRepository jdbcRepo;
+
+    @Mock
+    private UserCache cache;
+
+    @Mock
+    private ClusterCacheInvalidator invalidator;
+
+    private final UserRowValidator rowValidator = new UserRowValidator();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(rowValidator, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(service, "rowValidator", rowValidator);
+    }
+
+    /**
+     * Test that rows are flushed in chunks of the configured size.
+     */
+    @Test
+    void importCsv_shouldFlushInChunks() throws Exception {
+        String csv = "Name,Surname,Email,Adress\n" +
+                "Anna,Neri,a@x.com,Addr\n" +
+                "Bruno,Blu,b@x.com,Addr\n" +
+                "Carla,Verdi,c@x.com,Addr\n";
+        when(jdbcRepo.insertBatch(anyList())).thenReturn(2, 1);
+
+        ImportSummaryDto summary = service.importCsv(new StringReader(csv));
+
+        assertThat(summary.getRowsAccepted()).isEqualTo(3);
+        assertThat(summary.getRowsRejected()).isZero();
+        verify(jdbcRepo, times(2)).insertBatch(anyList());
+    }
+
+    /**
+     * Test that short rows and rows skipped by the database are counted as rejected.
+     */
+    @Test
+    void importCsv_shouldCountRejectedRows() throws Exception {
+        String csv = "Name,Surname,Email,Adress\n" +
+                "bad,cols\n" +
+                "Anna,Neri,a@x.com,Addr\n" +
+                "Bruno,Blu,dup@x.com,Addr\n";
+        when(jdbcRepo.insertBatch(anyList())).thenReturn(1, 0);
+
+        ImportSummaryDto summary = service.importCsv(new StringReader(csv));
+
+        assertThat(summary.getRowsAccepted()).isEqualTo(1);
+        assertThat(summary.getRowsRejected()).isEqualTo(2);
+        assertThat(summary.getErrors()).extracting(RowErrorDto::getRow).containsExactly(1L);
+        verify(jdbcRepo, times(2)).insertBatch(anyList());
+    }
+
+    /**
+     * Test that rows breaking the constraints of a user never reach the database and are reported.
+     */
+    @Test
+    void importCsv_shouldRejectInvalidRowsBeforeInserting() throws Exception {
+        ReflectionTestUtils.setField(service, "chunkSize", 10);
+        String csv = "Name,Surname,Email,Adress\n" +
+                "Anna,Neri,a@x.com,Addr\n" +
+                "Bruno,Blu,not-an-email,Addr\n" +
+                "Carla,Verdi,c@x.com," + "x".repeat(300) + "\n" +
+                "Dario,Neri,a@x.com,Addr\n";
+        when(jdbcRepo.insertBatch(anyList())).thenReturn(1);
+
+        ImportSummaryDto summary = service.importCsv(new StringReader(csv));
+
+        assertThat(summary.getRowsAccepted()).isEqualTo(1);
+        assertThat(summary.getRowsRejected()).isEqualTo(3);
+        assertThat(summary.getErrors()).extracting(RowErrorDto::getRow, RowErrorDto::getField).containsExactly(
+                tuple(2L, "email"), tuple(3L, "address"), tuple(4L, "email"));
+        verify(jdbcRepo).insertBatch(argThat((List<UserCreateDto> rows) ->
+                rows.size() == 1 && rows.get(0).getEmail().equals("a@x.com")));
+    }
+
+    /**
+     * Test that validation reports constraint violations, repeated emails and short rows without touching the database.
+     */
+    @Test
+    void validateCsv_shouldReportInvalidRows() throws Exception {
+        ReflectionTestUtils.setField(service, "mapper", new ObjectMapper());
+        String csv = "Name,Surname,Email,Adress\n" +
+                "Anna,Neri,anna@x.com,Addr\n" +
+                "Luca,Blu,anna@x.com,Addr\n" +
+                "Ugo,Verdi,ugo@x.com,Addr\n" +
+                "bad,cols\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rejected = service.validateCsv(new StringReader(csv), out);
+
+        assertThat(rejected).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8).lines()).containsExactly(
+                "{\"row\":2,\"field\":\"email\",\"message\":\"Email appears earlier in the file\"}",
+                "{\"row\":4,\"field\":null,\"message\":\"expected 4 columns but found 2\"}");
+        verifyNoInteractions(jdbcRepo);
+    }
+
+    /**
+     * Test that upsert reports inserted, updated and unchanged rows and evicts the updated users.
+     */
+    @Test
+    void upsertCsv_shouldCountOutcomesAndEvictUpdatedUsers() throws Exception {
+        String csv = "Name,Surname,Email,Adress\n" +
+                "Anna,Neri,a@x.com,Addr\n" +
+                "Bruno,Blu,b@x.com,Addr\n" +
+                "Carla,Verdi,c@x.com,Addr\n";
+        when(jdbcRepo.upsertBatch(anyList()))
+                .thenReturn(new UpsertResult(1, List.of(7L)), new UpsertResult(0, List.of()));
+
+        UpsertSummaryDto summary = service.upsertCsv(new StringReader(csv));
+
+        assertThat(summary.getRowsInserted()).isEqualTo(1);
+        assertThat(summary.getRowsUpdated()).isEqualTo(1);
+        assertThat(summary.getRowsUnchanged()).isEqualTo(1);
+        assertThat(summary.getRowsRejected()).isZero();
+        verify(cache).evictAll(List.of(7L));
+        verify(invalidator).publish(List.of(7L));
+        verifyNoMoreInteractions(cache, invalidator);
+    }
+
+    /**
+     * Test that only the first row for an email is sent, and that repeated emails, short rows and rows
+     * breaking the constraints of a user are rejected and reported.
+     */
+    @Test
+    void upsertCsv_shouldValidateRowsAndKeepFirstRowPerEmail() throws Exception {
+        ReflectionTestUtils.setField(service, "chunkSize", 10);
+        String csv = "Name,Surname,Email,Adress\n" +
+                "First,Neri,a@x.com,Addr\n" +
+                "bad,cols\n" +
+                "Second,Neri,a@x.com,Addr\n" +
+                "Carla,Verdi,c@x.com," + "x".repeat(300) + "\n";
+        when(jdbcRepo.upsertBatch(anyList())).thenReturn(new UpsertResult(1, List.of()));
+
+        UpsertSummaryDto summary = service.upsertCsv(new StringReader(csv));
+
+        assertThat(summary.getRowsInserted()).isEqualTo(1);
+        assertThat(summary.getRowsRejected()).isEqualTo(3);
+        assertThat(summary.getErrors()).extracting(RowErrorDto::getRow).containsExactly(2L, 3L, 4L);
+        verify(jdbcRepo).upsertBatch(argThat((List<UserCreateDto> rows) ->
+                rows.size() == 1 && rows.get(0).getFirstName().equals("First")));
+    }
+}
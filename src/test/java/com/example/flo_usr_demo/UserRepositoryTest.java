@@ -1,16 +1,21 @@
 package com.example.flo_usr_demo;
 
+import com.example.flo_usr_demo.dto.UserCreateDto;
 import com.example.flo_usr_demo.model.User;
+import com.example.flo_usr_demo.repository.UserJdbcRepository;
 import com.example.flo_usr_demo.repository.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -20,6 +25,9 @@ public class UserRepositoryTest {
     @Autowired
     private UserRepository repo;
 
+    @Autowired
+    private UserJdbcRepository jdbcRepo;
+
     @Test
     void whenDataLoaded_thenFindAllReturnsTwo() {
         List<User> all = repo.findAll();
@@ -33,4 +41,68 @@ public class UserRepositoryTest {
                 .extracting(User::getFirstName)
                 .containsExactly("Alice");
     }
+
+    @Test
+    void whenSearchWithWildcards_thenMatchLiterally() {
+        assertThat(repo.findByFirstNameContainingIgnoreCase("%")).isEmpty();
+        assertThat(repo.findByLastNameContainingIgnoreCase("_")).isEmpty();
+        assertThat(repo.searchByFullName("LIC", "ross", 0L, 10))
+                .extracting(User::getEmail)
+                .containsExactly("alice.rossi@example.com");
+    }
+
+    @Test
+    void whenSearchByEmailDomain_thenUseGeneratedDomainColumn() {
+        assertThat(repo.findByEmailDomain("example.com")).hasSize(3);
+        assertThat(repo.findByEmailDomainAfter("example.com", 1L, 10))
+                .extracting(User::getEmail)
+                .doesNotContain("alice.rossi@example.com");
+        assertThat(repo.findByEmailDomain("ample.com")).isEmpty();
+    }
+
+    @Test
+    void whenSavingStaleCopy_thenOptimisticLockFails() {
+        User created = repo.save(new User(null, "Ver", "Sion", "version@example.com", null));
+        try {
+            assertThat(created.getVersion()).isZero();
+            User first = repo.findById(created.getId()).orElseThrow();
+            User second = repo.findById(created.getId()).orElseThrow();
+
+            first.setAddress("First");
+            assertThat(repo.save(first).getVersion()).isEqualTo(1L);
+
+            second.setAddress("Second");
+            assertThatThrownBy(() -> repo.save(second))
+                    .isInstanceOf(OptimisticLockingFailureException.class);
+            assertThat(repo.findById(created.getId()).orElseThrow().getAddress()).isEqualTo("First");
+        } finally {
+            repo.deleteById(created.getId());
+        }
+    }
+
+    @Test
+    void whenJpaAndJdbcInsertsInterleave_thenIdsComeFromDisjointBlocks() {
+        List<User> saved = repo.saveAll(List.of(
+                new User(null, "Seq", "Jpa", "seq.jpa1@example.com", null),
+                new User(null, "Seq", "Jpa", "seq.jpa2@example.com", null)));
+        List<UserCreateDto> rows = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            rows.add(new UserCreateDto("Seq", "Jdbc", "seq.jdbc" + i + "@example.com", null));
+        }
+        assertThat(jdbcRepo.insertBatch(rows)).isEqualTo(60);
+        User afterBatch = repo.save(new User(null, "Seq", "Jpa", "seq.jpa3@example.com", null));
+
+        List<User> all = repo.findByFirstNameContainingIgnoreCase("Seq");
+        List<Long> jdbcIds = all.stream().filter(u -> u.getLastName().equals("Jdbc")).map(User::getId).sorted().toList();
+        try {
+            assertThat(all).extracting(User::getId).doesNotHaveDuplicates().hasSize(63);
+            // Hibernate keeps handing out IDs from its current block
+            assertThat(afterBatch.getId()).isEqualTo(saved.get(1).getId() + 1);
+            // the batch takes two fresh blocks, dense within each block
+            assertThat(jdbcIds.get(49) - jdbcIds.get(0)).isEqualTo(49);
+            assertThat(jdbcIds.get(59) - jdbcIds.get(50)).isEqualTo(9);
+        } finally {
+            repo.deleteAll(all);
+        }
+    }
 }
@@ -1,19 +1,35 @@
 package com.example.flo_usr_demo;
 
+import com.example.flo_usr_demo.dto.CursorPage;
+import com.example.flo_usr_demo.dto.UserBatchDto;
 import com.example.flo_usr_demo.dto.UserCreateDto;
 import com.example.flo_usr_demo.dto.UserDto;
+import com.example.flo_usr_demo.dto.UserPatchDto;
+import com.example.flo_usr_demo.exception.BadRequestException;
 import com.example.flo_usr_demo.exception.NotFoundException;
+import com.example.flo_usr_demo.exception.PreconditionFailedException;
 import com.example.flo_usr_demo.mapper.UserMapper;
 import com.example.flo_usr_demo.model.User;
+import com.example.flo_usr_demo.repository.UserJdbcRepository;
 import com.example.flo_usr_demo.repository.UserRepository;
+import com.example.flo_usr_demo.service.ClusterCacheInvalidator;
+import com.example.flo_usr_demo.service.PageCursor;
+import com.example.flo_usr_demo.service.SingleFlight;
+import com.example.flo_usr_demo.service.UserCache;
 import com.example.flo_usr_demo.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,6 +52,18 @@ class UserServiceTest {
     @Mock
     private UserRepository repo;
 
+    /** Mocked JDBC repository used for partial updates */
+    @Mock
+    private UserJdbcRepository jdbcRepo;
+
+    /** Mocked cluster invalidation, so no notifications are sent */
+    @Mock
+    private ClusterCacheInvalidator invalidator;
+
+    /** Real cache injected into the service */
+    @Spy
+    private UserCache cache = new UserCache(100, Duration.ofMinutes(1));
+
     private UserCreateDto sampleDto;
     private User sampleEntity;
     private UserDto sampleDtoWithId;
@@ -49,6 +77,10 @@ class UserServiceTest {
         sampleEntity = UserMapper.toEntity(sampleDto);
         sampleEntity.setId(42L);
         sampleDtoWithId = UserMapper.toDto(sampleEntity);
+        ReflectionTestUtils.setField(service, "maxBatchSize", 1000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(service, "userLoads", new SingleFlight<>("users.get", true, registry));
+        ReflectionTestUtils.setField(service, "userSearches", new SingleFlight<>("users.search", true, registry));
     }
 
     /**
@@ -81,7 +113,7 @@ class UserServiceTest {
         updatedEntity.setId(42L);
 
         when(repo.findById(42L)).thenReturn(Optional.of(existing));
-        when(repo.save(any(User.class))).thenReturn(updatedEntity);
+        when(repo.saveAndFlush(any(User.class))).thenReturn(updatedEntity);
 
         UserDto result = service.update(42L, updateDto);
 
@@ -102,12 +134,56 @@ class UserServiceTest {
                 .hasMessage("User not found with id: 99");
     }
 
+    /**
+     * Test that getAll() serves cached users from the cache, loads only the misses with one query
+     * and returns users in request order with the missing IDs.
+     */
+    @Test
+    void getAll_shouldQueryOnlyCacheMissesAndKeepRequestOrder() {
+        cache.put(sampleDtoWithId);
+        UserDto other = new UserDto(7L, "Luca", "Neri", "luca.neri@example.com", null, 0L);
+        when(jdbcRepo.findAllById(List.of(7L, 99L))).thenReturn(List.of(other));
+
+        UserBatchDto result = service.getAll(List.of(7L, 42L, 99L, 7L));
+
+        assertThat(result.getUsers()).extracting(UserDto::getId).containsExactly(7L, 42L);
+        assertThat(result.getMissingIds()).containsExactly(99L);
+        assertThat(cache.getIfPresent(7L)).isEqualTo(other);
+        verifyNoInteractions(repo);
+    }
+
+    /**
+     * Test that getAll() rejects more IDs than the configured maximum.
+     */
+    @Test
+    void getAll_tooManyIds_shouldThrowBadRequest() {
+        ReflectionTestUtils.setField(service, "maxBatchSize", 2);
+
+        assertThatThrownBy(() -> service.getAll(List.of(1L, 2L, 3L)))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(jdbcRepo);
+    }
+
+    /**
+     * Test that update() with a stale expected version throws and writes nothing.
+     */
+    @Test
+    void update_staleVersion_shouldThrowPreconditionFailed() {
+        sampleEntity.setVersion(3L);
+        when(repo.findById(42L)).thenReturn(Optional.of(sampleEntity));
+
+        assertThatThrownBy(() -> service.update(42L, sampleDto, 2L))
+                .isInstanceOf(PreconditionFailedException.class);
+        verify(repo, never()).saveAndFlush(any(User.class));
+        verifyNoInteractions(invalidator);
+    }
+
     /**
      * Test that get() returns an Optional containing the correct user.
      */
     @Test
     void get_existingUser_shouldReturnOptionalDto() {
-        when(repo.findById(42L)).thenReturn(Optional.of(sampleEntity));
+        when(jdbcRepo.findById(42L)).thenReturn(Optional.of(sampleDtoWithId));
 
         Optional<UserDto> result = service.get(42L);
 
@@ -119,7 +195,7 @@ class UserServiceTest {
      */
     @Test
     void get_nonexistentUser_shouldReturnEmptyOptional() {
-        when(repo.findById(123L)).thenReturn(Optional.empty());
+        when(jdbcRepo.findById(123L)).thenReturn(Optional.empty());
 
         Optional<UserDto> result = service.get(123L);
 
@@ -222,5 +298,232 @@ class UserServiceTest {
                 .containsExactly(1L, 2L);
         verify(repo).saveAll(argThat((List<User> list) -> list.size() == 2));
     }
-}
 
+    /**
+     * Test searchPage() fetches one extra row and returns a cursor when more rows are available.
+     */
+    @Test
+    void searchPage_withMoreRows_shouldReturnNextCursor() {
+        ReflectionTestUtils.setField(service, "defaultPageSize", 1);
+        ReflectionTestUtils.setField(service, "maxPageSize", 10);
+        User other = UserMapper.toEntity(new UserCreateDto("Bruno", "Bianchi", "bruno.bianchi@example.com", "Piazza Duomo"));
+        other.setId(43L);
+        when(repo.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(2)))
+                .thenReturn(List.of(sampleEntity, other));
+
+        CursorPage<UserDto> page = service.searchPage(null, null, null, null);
+
+        assertThat(page.getItems()).extracting(UserDto::getId).containsExactly(42L);
+        assertThat(PageCursor.decode(page.getNextCursor())).isEqualTo(42L);
+    }
+
+    /**
+     * Test searchPage() resumes after the cursor, caps the page size and returns no cursor on the last page.
+     */
+    @Test
+    void searchPage_lastPage_shouldReturnNoCursor() {
+        ReflectionTestUtils.setField(service, "defaultPageSize", 100);
+        ReflectionTestUtils.setField(service, "maxPageSize", 5);
+        when(repo.searchByFirstName("Anna", 41L, 6))
+                .thenReturn(List.of(sampleEntity));
+
+        CursorPage<UserDto> page = service.searchPage("Anna", null, PageCursor.encode(41L), 500);
+
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    /**
+     * Test searchPage() rejects cursors it did not produce.
+     */
+    @Test
+    void searchPage_invalidCursor_shouldThrowBadRequest() {
+        assertThatThrownBy(() -> service.searchPage(null, null, "not-a-cursor", 10))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    /**
+     * Test searchTextPage() resumes after the ranked cursor and encodes the rank of the last row.
+     */
+    @Test
+    void searchTextPage_withMoreRows_shouldReturnRankedCursor() {
+        ReflectionTestUtils.setField(service, "defaultPageSize", 1);
+        ReflectionTestUtils.setField(service, "maxPageSize", 10);
+        PageCursor.Ranked after = new PageCursor.Ranked(0.5f, 7L);
+        UserDto other = new UserDto(43L, "Bruno", "Bianchi", "bruno.bianchi@example.com", "Piazza Duomo", 0L);
+        when(jdbcRepo.searchText("rossi", after, 2)).thenReturn(List.of(
+                new UserJdbcRepository.RankedUser(UserMapper.toDto(sampleEntity), 0.4f),
+                new UserJdbcRepository.RankedUser(other, 0.1f)));
+
+        CursorPage<UserDto> page = service.searchTextPage(" rossi ", PageCursor.encodeRanked(after), null);
+
+        assertThat(page.getItems()).extracting(UserDto::getId).containsExactly(42L);
+        assertThat(PageCursor.decodeRanked(page.getNextCursor())).isEqualTo(new PageCursor.Ranked(0.4f, 42L));
+    }
+
+    /**
+     * Test searchTextPage() rejects a blank query and cursors of unranked pages.
+     */
+    @Test
+    void searchTextPage_invalidInput_shouldThrowBadRequest() {
+        assertThatThrownBy(() -> service.searchTextPage("  ", null, 10))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> service.searchTextPage("rossi", PageCursor.encode(42L), 10))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(jdbcRepo);
+    }
+
+    /**
+     * Test getUsersByEmailDomain() strips the legacy LIKE prefix and lower-cases the domain.
+     */
+    @Test
+    void getUsersByEmailDomain_shouldNormalizeDomain() {
+        when(repo.findByEmailDomain("example.com")).thenReturn(List.of(sampleEntity));
+
+        List<UserDto> result = service.getUsersByEmailDomain("%@Example.COM");
+
+        assertThat(result).hasSize(1);
+    }
+
+    /**
+     * Test getUsersByEmailDomain() rejects a blank domain.
+     */
+    @Test
+    void getUsersByEmailDomain_blankDomain_shouldThrowBadRequest() {
+        assertThatThrownBy(() -> service.getUsersByEmailDomain("@"))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    /**
+     * Test that get() serves repeated lookups from the cache and that update() refreshes the entry.
+     */
+    @Test
+    void get_cachedUser_shouldHitCacheAndBeRefreshedOnUpdate() {
+        when(jdbcRepo.findById(42L)).thenReturn(Optional.of(sampleDtoWithId));
+        service.get(42L);
+        Optional<UserDto> second = service.get(42L);
+
+        assertThat(second).contains(sampleDtoWithId);
+        verify(jdbcRepo, times(1)).findById(42L);
+
+        when(repo.findById(42L)).thenReturn(Optional.of(sampleEntity));
+
+        UserCreateDto updateDto = new UserCreateDto("Anna", "Rossi", "anna.rossi@example.com", "Via Roma 2");
+        User updatedEntity = UserMapper.toEntity(updateDto);
+        updatedEntity.setId(42L);
+        when(repo.saveAndFlush(any(User.class))).thenReturn(updatedEntity);
+        service.update(42L, updateDto);
+
+        assertThat(service.get(42L)).map(UserDto::getLastName).contains("Rossi");
+    }
+
+    /**
+     * Test that inside a transaction the updated user is cached only once the transaction commits,
+     * and never if it rolls back.
+     */
+    @Test
+    void update_inTransaction_shouldCacheOnlyAfterCommit() {
+        User updatedEntity = UserMapper.toEntity(new UserCreateDto("Anna", "Rossi", "anna.rossi@example.com", "Via Roma 2"));
+        updatedEntity.setId(42L);
+        when(repo.findById(42L)).thenReturn(Optional.of(sampleEntity));
+        when(repo.saveAndFlush(any(User.class))).thenReturn(updatedEntity);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.update(42L, sampleDto);
+            assertThat(cache.getIfPresent(42L)).isNull();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(cache.getIfPresent(42L)).extracting(UserDto::getLastName).isEqualTo("Rossi");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        cache.evict(42L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.update(42L, sampleDto);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(cache.getIfPresent(42L)).isNull();
+    }
+
+    /**
+     * Test that delete() evicts the cached user.
+     */
+    @Test
+    void delete_shouldEvictCachedUser() {
+        when(jdbcRepo.findById(42L)).thenReturn(Optional.of(sampleDtoWithId), Optional.empty());
+        service.get(42L);
+
+        service.delete(42L);
+
+        assertThat(service.get(42L)).isEmpty();
+        verify(cache).evict(42L);
+        verify(invalidator).publish(List.of(42L));
+    }
+
+    /**
+     * Test that patch() writes through the JDBC repository and refreshes the cached user.
+     */
+    @Test
+    void patch_existingUser_shouldUpdateAndCacheResult() {
+        UserPatchDto patch = new UserPatchDto(null, null, null, "Via Roma 2");
+        UserDto patched = new UserDto(42L, "Anna", "Verdi", "anna.verdi@example.com", "Via Roma 2", 1L);
+        when(jdbcRepo.patch(42L, patch, null)).thenReturn(Optional.of(patched));
+
+        UserDto result = service.patch(42L, patch);
+
+        assertThat(result).usingRecursiveComparison().isEqualTo(patched);
+        assertThat(service.get(42L)).get().usingRecursiveComparison().isEqualTo(patched);
+        verify(jdbcRepo, never()).findById(anyLong());
+        verify(invalidator).publish(List.of(42L));
+    }
+
+    /**
+     * Test that patch() throws NotFoundException when no row was updated.
+     */
+    @Test
+    void patch_nonexistentUser_shouldThrowNotFound() {
+        UserPatchDto patch = new UserPatchDto("Nuovo", null, null, null);
+        when(jdbcRepo.patch(99L, patch, null)).thenReturn(Optional.empty());
+        when(jdbcRepo.findVersion(99L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.patch(99L, patch))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("99");
+        verifyNoInteractions(invalidator);
+    }
+
+    /**
+     * Test that patch() reports a version mismatch, and writes nothing, when the user has moved on.
+     */
+    @Test
+    void patch_staleVersion_shouldThrowPreconditionFailed() {
+        UserPatchDto patch = new UserPatchDto("Nuovo", null, null, null);
+        when(jdbcRepo.patch(42L, patch, 3L)).thenReturn(Optional.empty());
+        when(jdbcRepo.findVersion(42L)).thenReturn(Optional.of(4L));
+
+        assertThatThrownBy(() -> service.patch(42L, patch, 3L))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessageContaining("version 4");
+        verifyNoInteractions(invalidator);
+    }
+
+    /**
+     * Test that an empty patch issues no UPDATE and returns the current user.
+     */
+    @Test
+    void patch_emptyPatch_shouldReturnCurrentUserWithoutWriting() {
+        when(jdbcRepo.findById(42L)).thenReturn(Optional.of(sampleDtoWithId));
+
+        UserDto result = service.patch(42L, new UserPatchDto());
+
+        assertThat(result).usingRecursiveComparison().isEqualTo(sampleDtoWithId);
+        verify(jdbcRepo, never()).patch(anyLong(), any(), any());
+        verifyNoInteractions(invalidator);
+    }
+}
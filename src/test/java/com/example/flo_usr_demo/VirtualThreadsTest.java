@@ -0,0 +1,76 @@
+package com.example.flo_usr_demo;
+
+import com.example.flo_usr_demo.dto.ImportJobDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests of the application with spring.threads.virtual.enabled.
+ * The context is discarded afterwards so the imported rows do not leak into other test classes.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.threads.virtual.enabled=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class VirtualThreadsTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Test
+    void tomcat_handlesRequestsOnVirtualThreads() {
+        TomcatWebServer server = (TomcatWebServer) context.getWebServer();
+
+        assertThat(server.getTomcat().getConnector().getProtocolHandler().getExecutor())
+                .isInstanceOf(VirtualThreadExecutor.class);
+    }
+
+    @Test
+    void importJob_completesOnVirtualThreads() throws Exception {
+        String csv = "Name,Surname,Email,Adress\n" +
+                "Virtual,One,virtual.one@example.com,Addr 1\n" +
+                "Virtual,Two,virtual.two@example.com,Addr 2\n";
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "virtual.csv", "text/csv", csv.getBytes()
+        );
+
+        String json = mvc.perform(multipart("/api/users/import-jobs").file(file))
+                .andExpect(status().isAccepted())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        ImportJobDto job = mapper.readValue(json, ImportJobDto.class);
+        String id = job.getId();
+        for (int i = 0; i < 50 && !job.getStatus().equals("COMPLETED"); i++) {
+            Thread.sleep(100);
+            job = mapper.readValue(mvc.perform(get("/api/users/import-jobs/" + id))
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString(), ImportJobDto.class);
+        }
+
+        assertThat(job.getStatus()).isEqualTo("COMPLETED");
+        assertThat(job.getRowsAccepted()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,17 @@
+-- Test seed data, run by Flyway after every migrate of the test profile
+-- Populate the users table with some example rows
+
+INSERT INTO users (id, first_name, last_name, email, address) VALUES
+    (1, 'Alice', 'Rossi', 'alice.rossi@example.com', 'Via Roma 1, Roma')
+    ON CONFLICT (email) DO NOTHING;
+
+INSERT INTO users (id, first_name, last_name, email, address) VALUES
+    (2, 'Bruno', 'Bianchi', 'bruno.bianchi@example.com', 'Piazza Duomo 2, Milano')
+    ON CONFLICT (email) DO NOTHING;
+
+INSERT INTO users (id, first_name, last_name, email, address) VALUES
+    (3, 'Carla', 'Verdi', 'carla.verdi@example.com', 'Corso Italia 3, Torino')
+    ON CONFLICT (email) DO NOTHING;
+
+-- explicit IDs, as a column DEFAULT would take a whole block of 50 (migration V4): move the sequence past them
+SELECT setval('users_id_seq', (SELECT max(id) FROM users) + 50, false);